@@ -0,0 +1,24 @@
+package pers.fw.jmh;
+
+/**
+ * 基准测试共用的辅助方法
+ * 各基准测试以java.util.function中的函数式接口（方法引用）表示被测实现的操作，不再为每个基准测试单独定义适配接口
+ */
+final class BenchmarkSupport {
+    private BenchmarkSupport() {
+    }
+
+    /**
+     * 遍历全部元素并求和，返回值交给JMH消费，避免遍历被优化掉
+     *
+     * @param elements
+     * @return
+     */
+    static long sum(Iterable<Integer> elements) {
+        long sum = 0;
+        for (Integer e : elements) {
+            sum += e;
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,86 @@
+package pers.fw.jmh;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import pers.fw.data_structure.Deque;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * 双向队列：{@link Deque}（双向链表）与{@link ArrayDeque}
+ * offerFirstPollLast、offerLastPollFirst：双端队列中已有size个元素时从一端入队、另一端出队；iterate：从队头到队尾遍历全部元素
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms3g", "-Xmx3g"})
+@State(Scope.Benchmark)
+public class DequeBenchmark {
+    @Param({"100", "1000", "10000", "100000", "1000000", "10000000"})
+    public int size;
+
+    @Param({"Deque", "ArrayDeque"})
+    public String impl;
+
+    private Consumer<Integer> offerFirst;
+    private Consumer<Integer> offerLast;
+    private Supplier<Integer> pollFirst;
+    private Supplier<Integer> pollLast;
+    /**
+     * 被测的双端队列本身，用于iterate
+     */
+    private Iterable<Integer> elements;
+    private final Integer element = 42;
+
+    @Setup
+    public void setup() {
+        if (impl.equals("Deque")) {
+            Deque<Integer> d = new Deque<>();
+            offerFirst = d::offerFirst;
+            offerLast = d::offerLast;
+            pollFirst = d::pollFirst;
+            pollLast = d::pollLast;
+            elements = d;
+        } else {
+            ArrayDeque<Integer> d = new ArrayDeque<>();
+            offerFirst = d::offerFirst;
+            offerLast = d::offerLast;
+            pollFirst = d::pollFirst;
+            pollLast = d::pollLast;
+            elements = d;
+        }
+        for (int i = 0; i < size; i++) {
+            offerLast.accept(i);
+        }
+    }
+
+    @Benchmark
+    public Integer offerFirstPollLast() {
+        offerFirst.accept(element);
+        return pollLast.get();
+    }
+
+    @Benchmark
+    public Integer offerLastPollFirst() {
+        offerLast.accept(element);
+        return pollFirst.get();
+    }
+
+    @Benchmark
+    public long iterate() {
+        return BenchmarkSupport.sum(elements);
+    }
+}
@@ -0,0 +1,119 @@
+package pers.fw.jmh;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import pers.fw.data_structure.heap.MaxHeap;
+import pers.fw.data_structure.heap.MinHeap;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * 堆：{@link MinHeap}、{@link MaxHeap}与{@link PriorityQueue}（自然顺序、逆序）
+ * addPoll：堆中已有size个随机元素时的一次添加+弹出堆顶；build：由size个随机元素整体建堆
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms3g", "-Xmx3g"})
+@State(Scope.Benchmark)
+public class HeapBenchmark {
+    /**
+     * addPoll轮流使用的随机元素数量，2的幂
+     */
+    private static final int PROBES = 1 << 16;
+
+    @Param({"100", "1000", "10000", "100000", "1000000", "10000000"})
+    public int size;
+
+    @Param({"MinHeap", "MaxHeap", "PriorityQueue", "PriorityQueueReversed"})
+    public String impl;
+
+    private Consumer<Integer> add;
+    private Supplier<Integer> poll;
+    /**
+     * 由元素数组整体建堆，返回堆顶
+     */
+    private Function<Integer[], Integer> build;
+    private Integer[] elements;
+    private Integer[] probes;
+    private int next;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        elements = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            elements[i] = random.nextInt();
+        }
+        probes = new Integer[PROBES];
+        for (int i = 0; i < PROBES; i++) {
+            probes[i] = random.nextInt();
+        }
+        switch (impl) {
+            case "MinHeap": {
+                MinHeap<Integer> h = new MinHeap<>(elements);
+                add = h::add;
+                poll = h::pop;
+                build = a -> new MinHeap<>(a).top();
+                break;
+            }
+            case "MaxHeap": {
+                MaxHeap<Integer> h = new MaxHeap<>(elements);
+                add = h::add;
+                poll = h::pop;
+                build = a -> new MaxHeap<>(a).top();
+                break;
+            }
+            case "PriorityQueue": {
+                PriorityQueue<Integer> h = new PriorityQueue<>(Arrays.asList(elements));
+                add = h::add;
+                poll = h::poll;
+                build = a -> new PriorityQueue<>(Arrays.asList(a)).peek();
+                break;
+            }
+            case "PriorityQueueReversed": {
+                PriorityQueue<Integer> h = new PriorityQueue<>(Math.max(1, size), Collections.reverseOrder());
+                h.addAll(Arrays.asList(elements));
+                add = h::add;
+                poll = h::poll;
+                //PriorityQueue只有自然顺序的集合构造器是O(n)建堆，带比较器时只能逐个添加
+                build = a -> {
+                    PriorityQueue<Integer> built = new PriorityQueue<>(Math.max(1, a.length), Collections.reverseOrder());
+                    built.addAll(Arrays.asList(a));
+                    return built.peek();
+                };
+                break;
+            }
+            default:
+                throw new IllegalArgumentException("unknown impl " + impl);
+        }
+    }
+
+    @Benchmark
+    public Integer addPoll() {
+        add.accept(probes[next++ & (PROBES - 1)]);
+        return poll.get();
+    }
+
+    @Benchmark
+    public Integer build() {
+        return build.apply(elements);
+    }
+}
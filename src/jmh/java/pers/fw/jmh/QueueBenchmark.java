@@ -0,0 +1,74 @@
+package pers.fw.jmh;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import pers.fw.data_structure.Queue;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * 单向队列：{@link Queue}与{@link ArrayDeque}
+ * offerPoll：队列中已有size个元素时的一次入队+出队；iterate：从队头到队尾遍历全部元素
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms3g", "-Xmx3g"})
+@State(Scope.Benchmark)
+public class QueueBenchmark {
+    @Param({"100", "1000", "10000", "100000", "1000000", "10000000"})
+    public int size;
+
+    @Param({"Queue", "ArrayDeque"})
+    public String impl;
+
+    private Consumer<Integer> offer;
+    private Supplier<Integer> poll;
+    /**
+     * 被测的队列本身，用于iterate
+     */
+    private Iterable<Integer> elements;
+    private final Integer element = 42;
+
+    @Setup
+    public void setup() {
+        if (impl.equals("Queue")) {
+            Queue<Integer> q = new Queue<>();
+            offer = q::offer;
+            poll = q::poll;
+            elements = q;
+        } else {
+            ArrayDeque<Integer> q = new ArrayDeque<>();
+            offer = q::offer;
+            poll = q::poll;
+            elements = q;
+        }
+        for (int i = 0; i < size; i++) {
+            offer.accept(i);
+        }
+    }
+
+    @Benchmark
+    public Integer offerPoll() {
+        offer.accept(element);
+        return poll.get();
+    }
+
+    @Benchmark
+    public long iterate() {
+        return BenchmarkSupport.sum(elements);
+    }
+}
@@ -0,0 +1,74 @@
+package pers.fw.jmh;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import pers.fw.data_structure.Stack;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * 栈：{@link Stack}与{@link ArrayDeque}
+ * pushPop：栈中已有size个元素时的一次入栈+出栈；iterate：从栈顶到栈底遍历全部元素
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms3g", "-Xmx3g"})
+@State(Scope.Benchmark)
+public class StackBenchmark {
+    @Param({"100", "1000", "10000", "100000", "1000000", "10000000"})
+    public int size;
+
+    @Param({"Stack", "ArrayDeque"})
+    public String impl;
+
+    private Consumer<Integer> push;
+    private Supplier<Integer> pop;
+    /**
+     * 被测的栈本身，用于iterate
+     */
+    private Iterable<Integer> elements;
+    private final Integer element = 42;
+
+    @Setup
+    public void setup() {
+        if (impl.equals("Stack")) {
+            Stack<Integer> s = new Stack<>();
+            push = s::push;
+            pop = s::pop;
+            elements = s;
+        } else {
+            ArrayDeque<Integer> s = new ArrayDeque<>();
+            push = s::push;
+            pop = s::pop;
+            elements = s;
+        }
+        for (int i = 0; i < size; i++) {
+            push.accept(i);
+        }
+    }
+
+    @Benchmark
+    public Integer pushPop() {
+        push.accept(element);
+        return pop.get();
+    }
+
+    @Benchmark
+    public long iterate() {
+        return BenchmarkSupport.sum(elements);
+    }
+}
@@ -0,0 +1,125 @@
+package pers.fw.jmh;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import pers.fw.data_structure.tree.AVLTree;
+import pers.fw.data_structure.tree.BinarySearchTree;
+import pers.fw.data_structure.tree.RedBlackTree;
+
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * 有序集合：{@link BinarySearchTree}、{@link AVLTree}、{@link RedBlackTree}与{@link TreeMap}
+ * 树中是随机顺序插入的size个偶数；contains：查找随机的已有元素；addRemove：添加一个不存在的奇数再删除；iterate：中序遍历全部元素
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms3g", "-Xmx3g"})
+@State(Scope.Benchmark)
+public class TreeBenchmark {
+    /**
+     * 轮流使用的随机查找元素数量，2的幂
+     */
+    private static final int PROBES = 1 << 16;
+
+    @Param({"100", "1000", "10000", "100000", "1000000", "10000000"})
+    public int size;
+
+    @Param({"BinarySearchTree", "AVLTree", "RedBlackTree", "TreeMap"})
+    public String impl;
+
+    private Consumer<Integer> add;
+    private Consumer<Integer> remove;
+    private Predicate<Integer> contains;
+    /**
+     * 按升序迭代全部元素，用于iterate
+     */
+    private Iterable<Integer> elements;
+    private Integer[] present;
+    private Integer[] absent;
+    private int next;
+
+    @Setup
+    public void setup() {
+        switch (impl) {
+            case "BinarySearchTree":
+                use(new BinarySearchTree<>());
+                break;
+            case "AVLTree":
+                use(new AVLTree<>());
+                break;
+            case "RedBlackTree":
+                use(new RedBlackTree<>());
+                break;
+            case "TreeMap":
+                TreeMap<Integer, Boolean> map = new TreeMap<>();
+                add = e -> map.put(e, Boolean.TRUE);
+                remove = map::remove;
+                contains = map::containsKey;
+                elements = map.keySet();
+                break;
+            default:
+                throw new IllegalArgumentException("unknown impl " + impl);
+        }
+        //随机顺序插入0, 2, ..., 2(size-1)，普通二叉搜索树的期望高度为O(logn)
+        Random random = new Random(42);
+        int[] keys = new int[size];
+        for (int i = 0; i < size; i++) {
+            keys[i] = 2 * i;
+        }
+        for (int i = size - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int tmp = keys[i];
+            keys[i] = keys[j];
+            keys[j] = tmp;
+        }
+        for (int key : keys) {
+            add.accept(key);
+        }
+        present = new Integer[PROBES];
+        absent = new Integer[PROBES];
+        for (int i = 0; i < PROBES; i++) {
+            present[i] = 2 * random.nextInt(size);
+            absent[i] = 2 * random.nextInt(size) + 1;
+        }
+    }
+
+    private void use(BinarySearchTree<Integer> tree) {
+        add = tree::add;
+        remove = tree::remove;
+        contains = tree::contains;
+        elements = tree;
+    }
+
+    @Benchmark
+    public boolean contains() {
+        return contains.test(present[next++ & (PROBES - 1)]);
+    }
+
+    @Benchmark
+    public void addRemove() {
+        Integer e = absent[next++ & (PROBES - 1)];
+        add.accept(e);
+        remove.accept(e);
+    }
+
+    @Benchmark
+    public long iterate() {
+        return BenchmarkSupport.sum(elements);
+    }
+}
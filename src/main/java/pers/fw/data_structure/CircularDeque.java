@@ -0,0 +1,197 @@
+package pers.fw.data_structure;
+
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * 双向队列：循环数组实现
+ * 容量始终为2的幂，下标通过与(length - 1)按位与取模，首尾入队、出队均为O(1)（扩容时均摊）
+ * 与双向链表实现{@link Deque}相比，每个元素只占用数组中的一个引用，并且元素连续存储，对缓存更友好
+ * 可选缩容：开启后元素数量降到容量的1/4时，容量减半（不小于初始容量）
+ * 迭代顺序为从队头到队尾，迭代器是fail-fast的
+ *
+ * @param <E>
+ */
+public class CircularDeque<E> implements Iterable<E> {
+    /**
+     * 默认容量
+     */
+    private static final int DEFAULT_INITIAL_CAPACITY = 16;
+    /**
+     * 最大容量：2的幂中不超过int最大值的那个
+     */
+    private static final int MAXIMUM_CAPACITY = 1 << 30;
+
+    private Object[] elements;
+    /**
+     * 队头元素的下标
+     */
+    private int head;
+    private int size;
+    /**
+     * 结构修改次数，用于迭代器快速失败
+     */
+    private int modCount;
+    private final int minCapacity;
+    private final boolean shrinkable;
+
+    public CircularDeque() {
+        this(DEFAULT_INITIAL_CAPACITY, false);
+    }
+
+    public CircularDeque(int initialCapacity) {
+        this(initialCapacity, false);
+    }
+
+    /**
+     * @param initialCapacity 初始容量，会向上取整为2的幂
+     * @param shrinkable      是否在元素较少时自动缩容
+     */
+    public CircularDeque(int initialCapacity, boolean shrinkable) {
+        if (initialCapacity < 0) throw new RuntimeException("initialCapacity must be ge zero");
+        minCapacity = tableSizeFor(initialCapacity);
+        elements = new Object[minCapacity];
+        this.shrinkable = shrinkable;
+    }
+
+    /**
+     * 大于等于cap的最小的2的幂
+     *
+     * @param cap
+     * @return
+     */
+    private static int tableSizeFor(int cap) {
+        if (cap <= 1) return 1;
+        if (cap >= MAXIMUM_CAPACITY) return MAXIMUM_CAPACITY;
+        return Integer.highestOneBit(cap - 1) << 1;
+    }
+
+    public void offerFirst(E e) {
+        if (size == elements.length) resize(elements.length << 1);
+        head = (head - 1) & (elements.length - 1);
+        elements[head] = e;
+        ++size;
+        ++modCount;
+    }
+
+    public void offerLast(E e) {
+        if (size == elements.length) resize(elements.length << 1);
+        elements[(head + size) & (elements.length - 1)] = e;
+        ++size;
+        ++modCount;
+    }
+
+    public E pollFirst() {
+        if (isEmpty()) return null;
+        E e = (E) elements[head];
+        elements[head] = null;
+        head = (head + 1) & (elements.length - 1);
+        --size;
+        ++modCount;
+        shrinkIfNecessary();
+        return e;
+    }
+
+    public E pollLast() {
+        if (isEmpty()) return null;
+        int tail = (head + size - 1) & (elements.length - 1);
+        E e = (E) elements[tail];
+        elements[tail] = null;
+        --size;
+        ++modCount;
+        shrinkIfNecessary();
+        return e;
+    }
+
+    public E peekFirst() {
+        if (isEmpty()) return null;
+        return (E) elements[head];
+    }
+
+    public E peekLast() {
+        if (isEmpty()) return null;
+        return (E) elements[(head + size - 1) & (elements.length - 1)];
+    }
+
+    private void shrinkIfNecessary() {
+        if (shrinkable && elements.length > minCapacity && size <= elements.length >> 2) {
+            resize(elements.length >> 1);
+        }
+    }
+
+    /**
+     * 调整容量，并将元素按顺序搬到新数组的开头
+     *
+     * @param newCapacity 2的幂，且不小于size
+     */
+    private void resize(int newCapacity) {
+        if (newCapacity <= 0 || newCapacity > MAXIMUM_CAPACITY) throw new RuntimeException("deque too big");
+        Object[] newElements = new Object[newCapacity];
+        int firstPart = Math.min(size, elements.length - head);
+        System.arraycopy(elements, head, newElements, 0, firstPart);
+        System.arraycopy(elements, 0, newElements, firstPart, size - firstPart);
+        elements = newElements;
+        head = 0;
+    }
+
+    public void clear() {
+        if (shrinkable && elements.length > minCapacity) {
+            elements = new Object[minCapacity];
+        } else {
+            Arrays.fill(elements, null);
+        }
+        head = size = 0;
+        ++modCount;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 从队头到队尾迭代
+     *
+     * @return
+     */
+    @Override
+    public Iterator<E> iterator() {
+        return new Iterator<E>() {
+            private int cursor;
+            private final int expectedModCount = modCount;
+
+            @Override
+            public boolean hasNext() {
+                return cursor < size;
+            }
+
+            @Override
+            public E next() {
+                if (modCount != expectedModCount) throw new ConcurrentModificationException();
+                if (cursor >= size) throw new NoSuchElementException();
+                return (E) elements[(head + cursor++) & (elements.length - 1)];
+            }
+        };
+    }
+
+    @Override
+    public Spliterator<E> spliterator() {
+        return new RingSpliterator<>(elements, head, size, () -> modCount);
+    }
+
+    public Stream<E> stream() {
+        return StreamSupport.stream(spliterator(), false);
+    }
+
+    public Stream<E> parallelStream() {
+        return StreamSupport.stream(spliterator(), true);
+    }
+}
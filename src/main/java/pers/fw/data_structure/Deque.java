@@ -1,13 +1,26 @@
 package pers.fw.data_structure;
 
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
 /**
  * 双向队列：双向链表实现
+ * 迭代顺序为从队头到队尾，迭代器是fail-fast的
  *
  * @param <E>
  */
-public class Deque<E> {
+public class Deque<E> implements Iterable<E> {
     private Node<E> head, tail;
     private int size;
+    /**
+     * 结构修改次数，用于迭代器快速失败
+     */
+    private int modCount;
 
     private static class Node<E> {
         private E e;
@@ -35,6 +48,7 @@ public class Deque<E> {
             head = node;
         }
         ++size;
+        ++modCount;
     }
 
     public void offerLast(E e) {
@@ -47,6 +61,7 @@ public class Deque<E> {
             tail = node;
         }
         ++size;
+        ++modCount;
     }
 
     public E pollFirst() {
@@ -62,6 +77,7 @@ public class Deque<E> {
         next.prev = null;
         head = next;
         --size;
+        ++modCount;
         return e;
     }
 
@@ -78,6 +94,7 @@ public class Deque<E> {
         prev.next = null;
         tail = prev;
         --size;
+        ++modCount;
         return e;
 
     }
@@ -95,6 +112,7 @@ public class Deque<E> {
     public void clear() {
         head = tail = null;
         size = 0;
+        ++modCount;
     }
 
     public boolean isEmpty() {
@@ -104,4 +122,49 @@ public class Deque<E> {
     public int size() {
         return size;
     }
+
+    /**
+     * 从队头到队尾迭代
+     *
+     * @return
+     */
+    @Override
+    public Iterator<E> iterator() {
+        return new Iterator<E>() {
+            private Node<E> next = head;
+            private final int expectedModCount = modCount;
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public E next() {
+                if (modCount != expectedModCount) throw new ConcurrentModificationException();
+                if (next == null) throw new NoSuchElementException();
+                E e = next.e;
+                next = next.next;
+                return e;
+            }
+        };
+    }
+
+    /**
+     * 链表无法按下标二分，拆分时由{@link Spliterators#spliterator(Iterator, long, int)}按批次把前缀元素复制到数组
+     *
+     * @return
+     */
+    @Override
+    public Spliterator<E> spliterator() {
+        return Spliterators.spliterator(iterator(), size, Spliterator.ORDERED);
+    }
+
+    public Stream<E> stream() {
+        return StreamSupport.stream(spliterator(), false);
+    }
+
+    public Stream<E> parallelStream() {
+        return StreamSupport.stream(spliterator(), true);
+    }
 }
@@ -0,0 +1,435 @@
+package pers.fw.data_structure;
+
+import pers.fw.data_structure.interf.KeyCodec;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * 基于文件的持久化单向队列：元素保存在目录下按序号滚动的段文件中，通过内存映射读写
+ * 记录格式：4字节长度 + 4字节CRC32 + 元素编码（见{@link KeyCodec}）；长度为0表示段内数据结束（新段文件全为0），每次追加后都会写入这个结束标记，
+ * 段剩余空间放不下一条记录时滚动到下一个段文件
+ * 读位置（段序号 + 段内偏移）和段文件大小保存在checkpoint文件中，读完一个段后删除该段文件，所以磁盘占用只与积压量有关；
+ * 队列只持有当前读、写两个段的映射，换段时丢弃旧段的引用；但Java没有公开的解除映射接口，被丢弃的映射（包括close之后的映射）
+ * 要等{@link MappedByteBuffer}对象被GC回收时才真正释放，在此之前仍占用虚拟地址空间（已删除的段文件也要到那时才释放磁盘空间），但不占用堆；打开时扫描各段产生的映射同样如此
+ * 打开时从读位置开始扫描各段以统计元素数量，并校验最后一个段中记录的CRC，截掉崩溃时写了一半的记录
+ * 与{@link Queue}一样不是线程安全的；目录通过文件锁保证同一时间只被一个进程打开
+ * 只支持队尾入队、队头出队：记录没有反向链接，不支持{@link Deque}的双端操作
+ *
+ * @param <E>
+ */
+public class FileQueue<E> implements Closeable {
+    /**
+     * 默认段文件大小：64MB
+     */
+    private static final int DEFAULT_SEGMENT_SIZE = 64 << 20;
+    private static final int HEADER_SIZE = 8;
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final String CHECKPOINT_FILE = "checkpoint";
+    private static final String LOCK_FILE = "lock";
+    /**
+     * {@link FsyncPolicy#PERIODIC}的刷盘间隔
+     */
+    private static final long SYNC_INTERVAL_NANOS = 1000000000L;
+
+    /**
+     * 刷盘策略，进程崩溃时已写入映射内存的数据都不会丢失，刷盘只影响操作系统崩溃或断电时的持久性
+     */
+    public enum FsyncPolicy {
+        /**
+         * 只在{@link FileQueue#sync()}和{@link FileQueue#close()}时刷盘，其余交给操作系统
+         */
+        NEVER,
+        /**
+         * 每次入队（包括批量入队）、出队后刷盘
+         */
+        ALWAYS,
+        /**
+         * 入队、出队时若距上次刷盘超过1秒则刷盘
+         */
+        PERIODIC
+    }
+
+    private final Path dir;
+    private final KeyCodec<E> codec;
+    private final int segmentSize;
+    private final FsyncPolicy fsyncPolicy;
+    private final FileChannel lockChannel;
+    private final FileLock lock;
+    private MappedByteBuffer checkpoint;
+    private final CRC32 crc = new CRC32();
+
+    private long writeSegment;
+    private int writePosition;
+    private MappedByteBuffer writeBuffer;
+    private long readSegment;
+    private int readPosition;
+    /**
+     * 读段与写段相同时为writeBuffer的副本，两者的position互不影响
+     */
+    private ByteBuffer readBuffer;
+    private long size;
+    private long lastSync = System.nanoTime();
+    private boolean closed;
+
+    public FileQueue(Path dir, KeyCodec<E> codec) {
+        this(dir, codec, DEFAULT_SEGMENT_SIZE, FsyncPolicy.NEVER);
+    }
+
+    /**
+     * @param dir         队列目录，不存在则创建
+     * @param codec       元素编解码器，同一目录必须始终使用相同的编解码器
+     * @param segmentSize 段文件大小，单个元素编码后不能超过segmentSize - 16；已有的队列目录必须使用创建时的段文件大小
+     * @param fsyncPolicy 刷盘策略
+     */
+    public FileQueue(Path dir, KeyCodec<E> codec, int segmentSize, FsyncPolicy fsyncPolicy) {
+        if (codec == null) throw new NullPointerException("codec must not be null");
+        if (fsyncPolicy == null) throw new NullPointerException("fsyncPolicy must not be null");
+        if (segmentSize < 4 * HEADER_SIZE) throw new RuntimeException("segmentSize must be ge " + 4 * HEADER_SIZE);
+        this.dir = dir;
+        this.codec = codec;
+        this.segmentSize = segmentSize;
+        this.fsyncPolicy = fsyncPolicy;
+        try {
+            Files.createDirectories(dir);
+            lockChannel = FileChannel.open(dir.resolve(LOCK_FILE), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            lock = tryLock(lockChannel);
+            if (lock == null) {
+                lockChannel.close();
+                throw new RuntimeException("queue directory is in use: " + dir);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        try {
+            try (FileChannel channel = FileChannel.open(dir.resolve(CHECKPOINT_FILE), StandardOpenOption.CREATE,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                checkpoint = channel.map(FileChannel.MapMode.READ_WRITE, 0, 16);
+            }
+            checkSegmentSize();
+            recover();
+        } catch (IOException | RuntimeException e) {
+            //打开失败时释放目录锁，否则同一进程内无法再打开该目录
+            try {
+                lock.release();
+                lockChannel.close();
+            } catch (IOException suppressed) {
+                e.addSuppressed(suppressed);
+            }
+            if (e instanceof IOException) throw new UncheckedIOException((IOException) e);
+            throw (RuntimeException) e;
+        }
+    }
+
+    /**
+     * 其他进程持有锁时tryLock返回null，本进程内重复打开时抛出OverlappingFileLockException，两者都视为目录被占用
+     */
+    private static FileLock tryLock(FileChannel channel) throws IOException {
+        try {
+            return channel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            return null;
+        }
+    }
+
+    //-----------------打开时恢复-----------------//
+
+    /**
+     * 段文件按段大小映射、扫描，用不同的大小打开已有目录会截断或越界读取记录，所以段大小必须与创建时一致
+     * checkpoint的最后4字节保存段大小；为0表示新目录或者旧版本创建的目录，后者以已有段文件的大小为准
+     */
+    private void checkSegmentSize() throws IOException {
+        int stored = checkpoint.getInt(12);
+        if (stored == 0) {
+            List<Long> segments = listSegments();
+            if (!segments.isEmpty()) stored = (int) Files.size(segmentPath(segments.get(0)));
+        }
+        if (stored != 0 && stored != segmentSize) {
+            throw new RuntimeException("segmentSize must be " + stored + " for existing queue " + dir + ", got " + segmentSize);
+        }
+        checkpoint.putInt(12, segmentSize);
+    }
+
+    private void recover() throws IOException {
+        List<Long> segments = listSegments();
+        readSegment = checkpoint.getLong(0);
+        readPosition = checkpoint.getInt(8);
+        if (segments.isEmpty() || readSegment > segments.get(segments.size() - 1)) {
+            //新队列，或者所有段都已读完并删除
+            for (long segment : segments) {
+                Files.deleteIfExists(segmentPath(segment));
+            }
+            readPosition = 0;
+            writeSegment = readSegment;
+            writeBuffer = map(writeSegment);
+            writePosition = 0;
+            readBuffer = writeBuffer.duplicate();
+            saveCheckpoint();
+            return;
+        }
+        if (readSegment < segments.get(0)) {
+            readSegment = segments.get(0);
+            readPosition = 0;
+        }
+        for (long segment : segments) {
+            //checkpoint更新后、删除段文件前崩溃时留下的已读段
+            if (segment < readSegment) Files.deleteIfExists(segmentPath(segment));
+        }
+        writeSegment = segments.get(segments.size() - 1);
+        for (long segment = readSegment; segment < writeSegment; segment++) {
+            if (!Files.exists(segmentPath(segment))) throw new IOException("missing segment " + segmentPath(segment));
+            MappedByteBuffer buffer = map(segment);
+            scan(buffer, segment == readSegment ? readPosition : 0, false);
+        }
+        writeBuffer = map(writeSegment);
+        writePosition = scan(writeBuffer, readSegment == writeSegment ? readPosition : 0, true);
+        markEnd(writeBuffer, writePosition);
+        readBuffer = readSegment == writeSegment ? writeBuffer.duplicate() : map(readSegment);
+        saveCheckpoint();
+    }
+
+    /**
+     * 从position开始逐条跳过记录并计数
+     *
+     * @param verify 是否校验CRC（只对可能有半条记录的最后一个段校验）
+     * @return 最后一条完整记录之后的位置
+     */
+    private int scan(ByteBuffer buffer, int position, boolean verify) {
+        while (position + HEADER_SIZE <= segmentSize) {
+            int length = buffer.getInt(position);
+            if (length <= 0 || length > segmentSize - position - HEADER_SIZE) break;
+            if (verify && checksum(buffer, position + HEADER_SIZE, length) != buffer.getInt(position + 4)) break;
+            ++size;
+            position += HEADER_SIZE + length;
+        }
+        return position;
+    }
+
+    private List<Long> listSegments() throws IOException {
+        List<Long> segments = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, "*" + SEGMENT_SUFFIX)) {
+            for (Path path : stream) {
+                String name = path.getFileName().toString();
+                segments.add(Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length())));
+            }
+        }
+        Collections.sort(segments);
+        return segments;
+    }
+
+    private Path segmentPath(long segment) {
+        return dir.resolve(String.format("%020d%s", segment, SEGMENT_SUFFIX));
+    }
+
+    /**
+     * 映射段文件，不存在则创建（新文件内容全为0）
+     */
+    private MappedByteBuffer map(long segment) throws IOException {
+        try (FileChannel channel = FileChannel.open(segmentPath(segment), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        }
+    }
+
+    private int checksum(ByteBuffer buffer, int position, int length) {
+        ByteBuffer payload = buffer.duplicate();
+        payload.limit(position + length).position(position);
+        crc.reset();
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+
+    private void markEnd(ByteBuffer buffer, int position) {
+        if (position + 4 <= segmentSize) buffer.putInt(position, 0);
+    }
+
+    private void saveCheckpoint() {
+        checkpoint.putLong(0, readSegment);
+        checkpoint.putInt(8, readPosition);
+    }
+
+    //-----------------入队-----------------//
+
+    /**
+     * 入队
+     *
+     * @param e
+     * @return 总是返回true
+     */
+    public boolean offer(E e) {
+        checkOpen();
+        try {
+            append(e);
+            afterWrite();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return true;
+    }
+
+    /**
+     * 批量入队，刷盘策略按一次写入计算，{@link FsyncPolicy#ALWAYS}下整批只刷盘一次
+     *
+     * @param elements
+     * @return 入队的元素数量
+     */
+    public int offerAll(Collection<? extends E> elements) {
+        checkOpen();
+        int count = 0;
+        try {
+            for (E e : elements) {
+                append(e);
+                count++;
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        afterWrite();
+        return count;
+    }
+
+    private void append(E e) throws IOException {
+        if (e == null) throw new NullPointerException("element must not be null");
+        int length = codec.size(e);
+        if (length <= 0) throw new RuntimeException("encoded element must not be empty");
+        if (length > segmentSize - 2 * HEADER_SIZE) throw new RuntimeException("encoded element too large: " + length);
+        if (writePosition + HEADER_SIZE + length > segmentSize) roll();
+        int payload = writePosition + HEADER_SIZE;
+        writeBuffer.limit(payload + length).position(payload);
+        codec.write(e, writeBuffer);
+        if (writeBuffer.position() != payload + length) throw new RuntimeException("codec wrote a different size than it reported");
+        writeBuffer.clear();
+        writeBuffer.putInt(writePosition + 4, checksum(writeBuffer, payload, length));
+        writeBuffer.putInt(writePosition, length);
+        writePosition = payload + length;
+        markEnd(writeBuffer, writePosition);
+        ++size;
+    }
+
+    /**
+     * 滚动到下一个段文件，旧段刷盘后不再写入；读段若是旧段则继续使用旧段的映射，读完后再切换
+     */
+    private void roll() throws IOException {
+        if (fsyncPolicy != FsyncPolicy.NEVER) writeBuffer.force();
+        writeBuffer = map(++writeSegment);
+        writePosition = 0;
+    }
+
+    private void afterWrite() {
+        if (fsyncPolicy == FsyncPolicy.ALWAYS || (fsyncPolicy == FsyncPolicy.PERIODIC && System.nanoTime() - lastSync >= SYNC_INTERVAL_NANOS)) {
+            sync();
+        }
+    }
+
+    //-----------------出队-----------------//
+
+    /**
+     * 出队
+     *
+     * @return 队列为空时返回null
+     */
+    public E poll() {
+        checkOpen();
+        if (!advanceToRecord()) return null;
+        int length = readBuffer.getInt(readPosition);
+        E e = decode(length);
+        readPosition += HEADER_SIZE + length;
+        --size;
+        saveCheckpoint();
+        afterWrite();
+        return e;
+    }
+
+    public E peek() {
+        checkOpen();
+        if (!advanceToRecord()) return null;
+        return decode(readBuffer.getInt(readPosition));
+    }
+
+    private E decode(int length) {
+        ByteBuffer payload = readBuffer.duplicate();
+        payload.limit(readPosition + HEADER_SIZE + length).position(readPosition + HEADER_SIZE);
+        return codec.read(payload);
+    }
+
+    /**
+     * 让读位置指向下一条记录：当前段读完时删除该段并切换到下一个段
+     *
+     * @return 队列为空时返回false
+     */
+    private boolean advanceToRecord() {
+        if (size == 0) return false;
+        if (readPosition + HEADER_SIZE > segmentSize || readBuffer.getInt(readPosition) == 0) {
+            try {
+                Path consumed = segmentPath(readSegment);
+                ++readSegment;
+                readPosition = 0;
+                readBuffer = readSegment == writeSegment ? writeBuffer.duplicate() : map(readSegment);
+                saveCheckpoint();
+                checkpoint.force();
+                Files.deleteIfExists(consumed);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return true;
+    }
+
+    //-----------------其他-----------------//
+
+    /**
+     * 关闭后映射可能尚未释放，必须拒绝读写，否则写入仍会落到文件上而不再受目录锁保护
+     */
+    private void checkOpen() {
+        if (closed) throw new IllegalStateException("queue is closed");
+    }
+
+    /**
+     * 把写段和checkpoint刷到磁盘
+     */
+    public void sync() {
+        checkOpen();
+        writeBuffer.force();
+        checkpoint.force();
+        lastSync = System.nanoTime();
+    }
+
+    public long size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * 刷盘、释放目录锁并丢弃所有映射的引用，之后的读写都会抛出IllegalStateException；重复调用无效果
+     * 映射本身在缓冲区对象被GC回收时才释放
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) return;
+        sync();
+        closed = true;
+        writeBuffer = null;
+        readBuffer = null;
+        checkpoint = null;
+        lock.release();
+        lockChannel.close();
+    }
+}
@@ -0,0 +1,236 @@
+package pers.fw.data_structure;
+
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 有界多生产者多消费者（MPMC）无锁队列：基于数组，每个槽位附带一个序号（Dmitry Vyukov的算法）
+ * 槽位idx的序号seq与位置pos（head/tail的绝对值，idx = pos & mask）的关系：
+ * seq == pos：槽位空闲，位置pos的生产者可以写入；
+ * seq == pos + 1：槽位已写入，位置pos的消费者可以读取；读取后seq设为pos + capacity，留给下一圈的生产者
+ * 生产者、消费者只在各自的tail/head上CAS竞争，彼此不会互相阻塞；head和tail分别位于填充过的对象中，避免伪共享
+ * 方法与{@link Queue}保持一致（offer/poll/peek/size），另外提供批量入队与批量取出；队列满时offer返回false
+ *
+ * @param <E>
+ */
+public class MpmcArrayQueue<E> {
+    /**
+     * 填充到至少一个缓存行（64字节），避免head与tail落在同一缓存行上
+     */
+    private static final class PaddedAtomicLong extends AtomicLong {
+        long p1, p2, p3, p4, p5, p6, p7;
+
+        PaddedAtomicLong(long initialValue) {
+            super(initialValue);
+        }
+    }
+
+    private final int capacity;
+    private final int mask;
+    private final Object[] buffer;
+    private final AtomicLongArray sequences;
+    /**
+     * 下一个出队位置
+     */
+    private final PaddedAtomicLong head = new PaddedAtomicLong(0);
+    /**
+     * 下一个入队位置
+     */
+    private final PaddedAtomicLong tail = new PaddedAtomicLong(0);
+
+    /**
+     * @param capacity 容量，会向上取整为2的幂
+     */
+    public MpmcArrayQueue(int capacity) {
+        if (capacity < 2 || capacity > 1 << 30) throw new RuntimeException("capacity must be in [2, 2^30]");
+        this.capacity = Integer.highestOneBit(capacity - 1) << 1;
+        mask = this.capacity - 1;
+        buffer = new Object[this.capacity];
+        sequences = new AtomicLongArray(this.capacity);
+        for (int i = 0; i < this.capacity; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * 入队，不允许null（null用于表示队列为空）
+     *
+     * @param e
+     * @return 队列已满时返回false
+     */
+    public boolean offer(E e) {
+        if (e == null) throw new NullPointerException("element must not be null");
+        long pos = tail.get();
+        while (true) {
+            int idx = (int) pos & mask;
+            long dif = sequences.get(idx) - pos;
+            if (dif == 0) {
+                if (tail.compareAndSet(pos, pos + 1)) {
+                    buffer[idx] = e;
+                    //lazySet保证元素的写入先于序号对消费者可见
+                    sequences.lazySet(idx, pos + 1);
+                    return true;
+                }
+                pos = tail.get();
+            } else if (dif < 0) {
+                //槽位还被上一圈的元素占用：队列已满
+                return false;
+            } else {
+                //其他生产者已经占用了pos
+                pos = tail.get();
+            }
+        }
+    }
+
+    /**
+     * 批量入队：一次CAS占用连续的多个位置，再依次写入
+     *
+     * @param elements
+     * @param offset
+     * @param length
+     * @return 实际入队的数量，可能小于length（队列剩余空间不足）
+     */
+    public int offer(E[] elements, int offset, int length) {
+        if (offset < 0 || length < 0 || offset + length > elements.length) throw new IndexOutOfBoundsException();
+        for (int i = offset; i < offset + length; i++) {
+            if (elements[i] == null) throw new NullPointerException("element must not be null");
+        }
+        long pos;
+        int n;
+        do {
+            //先读head再读tail，得到的剩余空间只会偏小，保证占用的位置都已（或即将）被消费者释放
+            long h = head.get();
+            pos = tail.get();
+            n = (int) Math.min(length, capacity - (pos - h));
+            if (n <= 0) return 0;
+        } while (!tail.compareAndSet(pos, pos + n));
+        for (int i = 0; i < n; i++) {
+            long p = pos + i;
+            int idx = (int) p & mask;
+            //上一圈的消费者已占用该位置，但可能还没释放序号
+            while (sequences.get(idx) != p) {
+                Thread.yield();
+            }
+            buffer[idx] = elements[offset + i];
+            sequences.lazySet(idx, p + 1);
+        }
+        return n;
+    }
+
+    /**
+     * 出队
+     *
+     * @return 队列为空时返回null
+     */
+    public E poll() {
+        long pos = head.get();
+        while (true) {
+            int idx = (int) pos & mask;
+            long dif = sequences.get(idx) - (pos + 1);
+            if (dif == 0) {
+                if (head.compareAndSet(pos, pos + 1)) {
+                    E e = (E) buffer[idx];
+                    buffer[idx] = null;
+                    sequences.lazySet(idx, pos + capacity);
+                    return e;
+                }
+                pos = head.get();
+            } else if (dif < 0) {
+                //槽位还没有写入：队列为空
+                return null;
+            } else {
+                pos = head.get();
+            }
+        }
+    }
+
+    /**
+     * 查看队头元素但不删除，并发出队时结果可能立刻过期
+     *
+     * @return 队列为空时返回null
+     */
+    public E peek() {
+        while (true) {
+            long pos = head.get();
+            int idx = (int) pos & mask;
+            long dif = sequences.get(idx) - (pos + 1);
+            if (dif < 0) return null;
+            if (dif == 0) {
+                E e = (E) buffer[idx];
+                //head没变说明读取期间元素没有被取走
+                if (e != null && head.get() == pos) return e;
+            }
+        }
+    }
+
+    /**
+     * 批量取出：一次CAS占用连续的多个位置，再依次读取
+     *
+     * @param collection
+     * @param maxElements
+     * @return 取出的数量
+     */
+    public int drainTo(Collection<? super E> collection, int maxElements) {
+        if (collection == null) throw new NullPointerException("collection must not be null");
+        if (maxElements <= 0) return 0;
+        long pos;
+        int n;
+        do {
+            //先读tail再读head，得到的元素数量只会偏小，保证占用的位置都已（或即将）被生产者写入
+            long t = tail.get();
+            pos = head.get();
+            n = (int) Math.min(maxElements, t - pos);
+            if (n <= 0) return 0;
+        } while (!head.compareAndSet(pos, pos + n));
+        for (int i = 0; i < n; i++) {
+            long p = pos + i;
+            int idx = (int) p & mask;
+            //生产者已占用该位置，但可能还没写完
+            while (sequences.get(idx) != p + 1) {
+                Thread.yield();
+            }
+            E e = (E) buffer[idx];
+            buffer[idx] = null;
+            sequences.lazySet(idx, p + capacity);
+            collection.add(e);
+        }
+        return n;
+    }
+
+    public int drainTo(Collection<? super E> collection) {
+        return drainTo(collection, Integer.MAX_VALUE);
+    }
+
+    /**
+     * 清空队列：依次出队直到为空
+     */
+    public void clear() {
+        while (poll() != null) ;
+    }
+
+    /**
+     * 元素数量，并发修改时为近似值
+     *
+     * @return
+     */
+    public int size() {
+        long after = head.get();
+        while (true) {
+            long before = after;
+            long t = tail.get();
+            after = head.get();
+            if (before == after) {
+                return (int) Math.max(0, Math.min(capacity, t - after));
+            }
+        }
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+}
@@ -1,66 +1,118 @@
 package pers.fw.data_structure;
 
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
 /**
- * 单向队列：使用双栈实现(正常应该考虑双向链表实现)
- * 入队O(1)、出队平均O(n)
- * 与双向链表的实现相比节省了前置引用
- * 所以更适合并且先一直入队，然后统一出队的情况（一边入一边出可能会存在频繁的元素移动，统一出则只需第一次全量移动，后续都是O(1) ）
+ * 单向队列：使用循环数组实现
+ * 数组长度为2的幂，下标通过与(length - 1)按位与取模
+ * 入队、出队、查看队头均为O(1)，不会出现双栈实现中首次出队时整体搬移元素的情况
+ * 无界队列在数组满时扩充二倍长度（均摊O(1)）；有界队列在创建时一次性分配数组，之后的操作都是严格O(1)，队列满时入队失败
+ * 迭代顺序为从队头到队尾，迭代器是fail-fast的
  *
  * @param <E>
  */
-public class Queue<E> {
+public class Queue<E> implements Iterable<E> {
     /**
-     * 入栈、出栈
+     * 默认容量
      */
-    private Stack<E> inStack, outStack;
+    private static final int DEFAULT_INITIAL_CAPACITY = 16;
+    private static final int MAXIMUM_CAPACITY = 1 << 30;
+
+    private Object[] elements;
+    /**
+     * 队头元素的下标
+     */
+    private int head;
     private int size;
+    /**
+     * 结构修改次数，用于迭代器快速失败
+     */
+    private int modCount;
+    /**
+     * 容量上限，无界队列为Integer.MAX_VALUE
+     */
+    private final int bound;
 
     public Queue() {
-        inStack = new Stack<>();
-        outStack = new Stack<>();
-        size = 0;
+        elements = new Object[DEFAULT_INITIAL_CAPACITY];
+        bound = Integer.MAX_VALUE;
+    }
+
+    /**
+     * 有界队列
+     *
+     * @param bound 队列最多容纳的元素数量
+     */
+    public Queue(int bound) {
+        if (bound <= 0 || bound > MAXIMUM_CAPACITY) throw new RuntimeException("bound must be in (0, 2^30]");
+        elements = new Object[tableSizeFor(bound)];
+        this.bound = bound;
+    }
+
+    /**
+     * 大于等于cap的最小的2的幂
+     *
+     * @param cap
+     * @return
+     */
+    private static int tableSizeFor(int cap) {
+        if (cap <= 1) return 1;
+        return Integer.highestOneBit(cap - 1) << 1;
     }
 
-    public void offer(E e) {
-        inStack.push(e);
+    /**
+     * 入队
+     *
+     * @param e
+     * @return 有界队列已满时返回false
+     */
+    public boolean offer(E e) {
+        if (size == bound) return false;
+        if (size == elements.length) grow();
+        elements[(head + size) & (elements.length - 1)] = e;
         ++size;
+        ++modCount;
+        return true;
     }
 
     public E poll() {
-        if (!outStack.isEmpty()) {
-            --size;
-            return outStack.pop();
-        }
-        if (inStack.isEmpty()) {
-            //入栈、出栈均为空
-            return null;
-        }
-        while (!inStack.isEmpty()) {
-            outStack.push(inStack.pop());
-        }
+        if (size == 0) return null;
+        E e = (E) elements[head];
+        elements[head] = null;
+        head = (head + 1) & (elements.length - 1);
         --size;
-        return outStack.pop();
-
+        ++modCount;
+        return e;
     }
 
     public E peek() {
-        if (!outStack.isEmpty()) {
-            return outStack.top();
-        }
-        if (inStack.isEmpty()) {
-            //入栈、出栈均为空
-            return null;
-        }
-        while (!inStack.isEmpty()) {
-            outStack.push(inStack.pop());
-        }
-        return outStack.top();
+        if (size == 0) return null;
+        return (E) elements[head];
+    }
+
+    /**
+     * 扩充二倍长度，并将元素按顺序搬到新数组的开头
+     */
+    private void grow() {
+        if (elements.length == MAXIMUM_CAPACITY) throw new RuntimeException("queue too big");
+        Object[] newElements = new Object[elements.length << 1];
+        int firstPart = elements.length - head;
+        System.arraycopy(elements, head, newElements, 0, firstPart);
+        System.arraycopy(elements, 0, newElements, firstPart, head);
+        elements = newElements;
+        head = 0;
     }
 
     public void clear() {
-        inStack.clear();
-        outStack.clear();
-        size = 0;
+        Arrays.fill(elements, null);
+        head = size = 0;
+        ++modCount;
     }
 
     public boolean isEmpty() {
@@ -70,4 +122,51 @@ public class Queue<E> {
     public int size() {
         return size;
     }
+
+    /**
+     * 剩余可入队的数量，无界队列为Integer.MAX_VALUE - size
+     *
+     * @return
+     */
+    public int remainingCapacity() {
+        return bound - size;
+    }
+
+    /**
+     * 从队头到队尾迭代
+     *
+     * @return
+     */
+    @Override
+    public Iterator<E> iterator() {
+        return new Iterator<E>() {
+            private int cursor;
+            private final int expectedModCount = modCount;
+
+            @Override
+            public boolean hasNext() {
+                return cursor < size;
+            }
+
+            @Override
+            public E next() {
+                if (modCount != expectedModCount) throw new ConcurrentModificationException();
+                if (cursor >= size) throw new NoSuchElementException();
+                return (E) elements[(head + cursor++) & (elements.length - 1)];
+            }
+        };
+    }
+
+    @Override
+    public Spliterator<E> spliterator() {
+        return new RingSpliterator<>(elements, head, size, () -> modCount);
+    }
+
+    public Stream<E> stream() {
+        return StreamSupport.stream(spliterator(), false);
+    }
+
+    public Stream<E> parallelStream() {
+        return StreamSupport.stream(spliterator(), true);
+    }
 }
@@ -0,0 +1,85 @@
+package pers.fw.data_structure;
+
+import java.util.ConcurrentModificationException;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.IntSupplier;
+
+/**
+ * 循环数组（长度为2的幂）的spliterator，供{@link Queue}和{@link CircularDeque}共用
+ * 按相对队头的逻辑位置[origin, fence)划分，逻辑位置p对应elements[(head + p) & mask]，拆分时直接二分
+ * 创建时记录数组和队头：之后只要发生结构修改，modCount就会变化并快速失败，所以记录的数组和队头在使用期间始终有效
+ *
+ * @param <E>
+ */
+final class RingSpliterator<E> implements Spliterator<E> {
+    private final Object[] elements;
+    private final int head;
+    private final int mask;
+    /**
+     * 读取所属队列当前的结构修改次数
+     */
+    private final IntSupplier modCount;
+    private final int expectedModCount;
+    private int origin;
+    private final int fence;
+
+    /**
+     * 覆盖队列的全部元素
+     *
+     * @param elements 队列的数组
+     * @param head     队头元素的下标
+     * @param size     元素数量
+     * @param modCount 读取队列当前的结构修改次数
+     */
+    RingSpliterator(Object[] elements, int head, int size, IntSupplier modCount) {
+        this(elements, head, modCount, modCount.getAsInt(), 0, size);
+    }
+
+    private RingSpliterator(Object[] elements, int head, IntSupplier modCount, int expectedModCount, int origin, int fence) {
+        this.elements = elements;
+        this.head = head;
+        this.mask = elements.length - 1;
+        this.modCount = modCount;
+        this.expectedModCount = expectedModCount;
+        this.origin = origin;
+        this.fence = fence;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super E> action) {
+        if (action == null) throw new NullPointerException();
+        if (modCount.getAsInt() != expectedModCount) throw new ConcurrentModificationException();
+        if (origin >= fence) return false;
+        action.accept((E) elements[(head + origin++) & mask]);
+        return true;
+    }
+
+    @Override
+    public void forEachRemaining(Consumer<? super E> action) {
+        if (action == null) throw new NullPointerException();
+        for (; origin < fence; origin++) {
+            action.accept((E) elements[(head + origin) & mask]);
+        }
+        if (modCount.getAsInt() != expectedModCount) throw new ConcurrentModificationException();
+    }
+
+    @Override
+    public Spliterator<E> trySplit() {
+        int mid = (origin + fence) >>> 1;
+        if (mid <= origin) return null;
+        RingSpliterator<E> prefix = new RingSpliterator<>(elements, head, modCount, expectedModCount, origin, mid);
+        origin = mid;
+        return prefix;
+    }
+
+    @Override
+    public long estimateSize() {
+        return fence - origin;
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED | SIZED | SUBSIZED;
+    }
+}
@@ -0,0 +1,149 @@
+package pers.fw.data_structure;
+
+import pers.fw.data_structure.interf.KeyCodec;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 快照文件的读写工具
+ * 写：先写入同目录下的临时文件，刷盘后原子地重命名为目标文件，写到一半崩溃不会破坏已有的快照
+ * 读：通过{@link FileChannel#map}按窗口映射文件（单个{@link MappedByteBuffer}最大2GB），元素跨越窗口边界时从该元素的起点重新映射
+ */
+public final class SnapshotIO {
+    private static final int WRITE_BUFFER_SIZE = 1 << 20;
+    private static final long MAP_WINDOW_SIZE = 1 << 30;
+
+    private SnapshotIO() {
+    }
+
+    public static final class Writer implements Closeable {
+        private final Path path;
+        private final Path tmpPath;
+        private final FileChannel channel;
+        private ByteBuffer buffer = ByteBuffer.allocate(WRITE_BUFFER_SIZE);
+        private boolean committed;
+
+        public Writer(Path path) throws IOException {
+            this.path = path;
+            this.tmpPath = path.resolveSibling(path.getFileName() + ".tmp");
+            this.channel = FileChannel.open(tmpPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+        }
+
+        /**
+         * 保证缓冲区至少还有n字节空间，超过缓冲区容量的元素会换用更大的缓冲区
+         */
+        private void ensure(int n) throws IOException {
+            if (buffer.remaining() >= n) return;
+            flush();
+            if (buffer.capacity() < n) buffer = ByteBuffer.allocate(n);
+        }
+
+        private void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+
+        public void writeInt(int i) throws IOException {
+            ensure(Integer.BYTES);
+            buffer.putInt(i);
+        }
+
+        public void writeString(String s) throws IOException {
+            write(s, KeyCodec.STRING);
+        }
+
+        public <T> void write(T t, KeyCodec<T> codec) throws IOException {
+            int size = codec.size(t);
+            ensure(size);
+            int position = buffer.position();
+            codec.write(t, buffer);
+            if (buffer.position() - position != size) throw new IOException("codec wrote " + (buffer.position() - position) + " bytes, expected " + size);
+        }
+
+        /**
+         * 刷盘并替换目标文件，之后才算写入成功
+         */
+        public void commit() throws IOException {
+            flush();
+            channel.force(true);
+            channel.close();
+            Files.move(tmpPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            committed = true;
+        }
+
+        /**
+         * 未提交就关闭时丢弃临时文件
+         */
+        @Override
+        public void close() throws IOException {
+            if (committed) return;
+            channel.close();
+            Files.deleteIfExists(tmpPath);
+        }
+    }
+
+    public static final class Reader implements Closeable {
+        private final FileChannel channel;
+        private final long fileSize;
+        /**
+         * 当前映射窗口在文件中的起始位置
+         */
+        private long windowStart;
+        private MappedByteBuffer buffer;
+
+        public Reader(Path path) throws IOException {
+            channel = FileChannel.open(path, StandardOpenOption.READ);
+            fileSize = channel.size();
+            map(0);
+        }
+
+        private void map(long start) throws IOException {
+            windowStart = start;
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(MAP_WINDOW_SIZE, fileSize - start));
+        }
+
+        public int readInt() throws IOException {
+            return read(KeyCodec.INT);
+        }
+
+        public String readString() throws IOException {
+            return read(KeyCodec.STRING);
+        }
+
+        /**
+         * 读出一个元素；当前窗口剩余的字节不够时，从该元素的起点重新映射后再读
+         */
+        public <T> T read(KeyCodec<T> codec) throws IOException {
+            while (true) {
+                int position = buffer.position();
+                try {
+                    return codec.read(buffer);
+                } catch (BufferUnderflowException e) {
+                    long start = windowStart + position;
+                    if (windowStart + buffer.limit() >= fileSize || start == windowStart) {
+                        throw new IOException("snapshot truncated at " + start);
+                    }
+                    map(start);
+                }
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+}
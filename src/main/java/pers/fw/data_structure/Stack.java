@@ -1,27 +1,58 @@
 package pers.fw.data_structure;
 
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
 /**
- * 栈：使用单链表实现
+ * 栈：使用数组实现
  * 允许栈内元素为null
+ * 数组满时扩充二倍长度，入栈、出栈不会为每个元素分配节点对象
+ * 可选缩容：开启后元素数量降到容量的1/4时，容量减半（不小于初始容量）；也可以随时调用{@link Stack#trimToSize()}
+ * 迭代顺序为从栈顶到栈底，迭代器是fail-fast的
  *
  * @param <E>
  */
-public class Stack<E> {
-    private Node<E> head;
+public class Stack<E> implements Iterable<E> {
+    /**
+     * 默认容量：只有使用无参构造器并且第一次调用push方法才会使用
+     */
+    private static final int DEFAULT_INITIAL_CAPACITY = 16;
+    private static final Object[] EMPTY_ELEMENTS = {};
+
+    private Object[] elements;
     private int size;
+    /**
+     * 结构修改次数，用于迭代器快速失败
+     */
+    private int modCount;
+    private final int minCapacity;
+    private final boolean shrinkable;
 
-    private static class Node<E> {
-        private E e;
-        private Node<E> next;
+    public Stack() {
+        elements = EMPTY_ELEMENTS;
+        minCapacity = DEFAULT_INITIAL_CAPACITY;
+        shrinkable = false;
+    }
 
-        public Node(E e, Node<E> next) {
-            this.e = e;
-            this.next = next;
-        }
+    public Stack(int initialCapacity) {
+        this(initialCapacity, false);
     }
 
-    public Stack() {
-        size = 0;
+    /**
+     * @param initialCapacity 初始容量
+     * @param shrinkable      是否在元素较少时自动缩容
+     */
+    public Stack(int initialCapacity, boolean shrinkable) {
+        if (initialCapacity < 0) throw new RuntimeException("initialCapacity must be ge zero");
+        elements = initialCapacity == 0 ? EMPTY_ELEMENTS : new Object[initialCapacity];
+        minCapacity = Math.max(initialCapacity, 1);
+        this.shrinkable = shrinkable;
     }
 
     /**
@@ -30,7 +61,7 @@ public class Stack<E> {
      * @return
      */
     public E top() {
-        return head == null ? null : head.e;
+        return size == 0 ? null : (E) elements[size - 1];
     }
 
     /**
@@ -39,8 +70,11 @@ public class Stack<E> {
      * @param e
      */
     public void push(E e) {
-        head = new Node<>(e, head);
-        ++size;
+        if (size == elements.length) {
+            elements = Arrays.copyOf(elements, elements.length == 0 ? minCapacity : elements.length << 1);
+        }
+        elements[size++] = e;
+        ++modCount;
     }
 
     /**
@@ -49,12 +83,15 @@ public class Stack<E> {
      * @return
      */
     public E pop() {
-        if (head == null) {
+        if (size == 0) {
             return null;
         }
-        E top = head.e;
-        head = head.next;
-        --size;
+        E top = (E) elements[--size];
+        elements[size] = null;
+        ++modCount;
+        if (shrinkable && elements.length > minCapacity && size <= elements.length >> 2) {
+            elements = Arrays.copyOf(elements, Math.max(elements.length >> 1, minCapacity));
+        }
         return top;
     }
 
@@ -62,8 +99,18 @@ public class Stack<E> {
      * 清空栈
      */
     public void clear() {
-        head = null;
+        Arrays.fill(elements, 0, size, null);
         size = 0;
+        ++modCount;
+    }
+
+    /**
+     * 将数组容量缩减到当前元素数量
+     */
+    public void trimToSize() {
+        if (size < elements.length) {
+            elements = size == 0 ? EMPTY_ELEMENTS : Arrays.copyOf(elements, size);
+        }
     }
 
     /**
@@ -79,4 +126,96 @@ public class Stack<E> {
         return size == 0;
     }
 
+    /**
+     * 从栈顶到栈底迭代
+     *
+     * @return
+     */
+    @Override
+    public Iterator<E> iterator() {
+        return new Iterator<E>() {
+            private int cursor = size - 1;
+            private final int expectedModCount = modCount;
+
+            @Override
+            public boolean hasNext() {
+                return cursor >= 0;
+            }
+
+            @Override
+            public E next() {
+                if (modCount != expectedModCount) throw new ConcurrentModificationException();
+                if (cursor < 0) throw new NoSuchElementException();
+                return (E) elements[cursor--];
+            }
+        };
+    }
+
+    @Override
+    public Spliterator<E> spliterator() {
+        return new StackSpliterator(size - 1, 0, size, modCount);
+    }
+
+    public Stream<E> stream() {
+        return StreamSupport.stream(spliterator(), false);
+    }
+
+    public Stream<E> parallelStream() {
+        return StreamSupport.stream(spliterator(), true);
+    }
+
+    /**
+     * 按栈顶到栈底的逻辑位置[origin, fence)划分，逻辑位置p对应elements[top - p]，拆分时直接二分
+     */
+    private final class StackSpliterator implements Spliterator<E> {
+        private final int top;
+        private int origin;
+        private final int fence;
+        private final int expectedModCount;
+
+        StackSpliterator(int top, int origin, int fence, int expectedModCount) {
+            this.top = top;
+            this.origin = origin;
+            this.fence = fence;
+            this.expectedModCount = expectedModCount;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super E> action) {
+            if (action == null) throw new NullPointerException();
+            if (modCount != expectedModCount) throw new ConcurrentModificationException();
+            if (origin >= fence) return false;
+            action.accept((E) elements[top - origin++]);
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super E> action) {
+            if (action == null) throw new NullPointerException();
+            Object[] a = elements;
+            for (; origin < fence; origin++) {
+                action.accept((E) a[top - origin]);
+            }
+            if (modCount != expectedModCount) throw new ConcurrentModificationException();
+        }
+
+        @Override
+        public Spliterator<E> trySplit() {
+            int mid = (origin + fence) >>> 1;
+            if (mid <= origin) return null;
+            StackSpliterator prefix = new StackSpliterator(top, origin, mid, expectedModCount);
+            origin = mid;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            return fence - origin;
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | SIZED | SUBSIZED;
+        }
+    }
 }
@@ -0,0 +1,162 @@
+package pers.fw.data_structure;
+
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 工作窃取双向队列（Chase-Lev算法），用于fork/join风格的任务调度
+ * 只有一个所有者线程可以在尾部入队、出队（{@link WorkStealingDeque#offerLast(Object)}、{@link WorkStealingDeque#pollLast()}），
+ * 二者在快速路径上只有普通读写，不加锁也不CAS，只有取走最后一个元素时才需要与窃取者CAS竞争；
+ * 任意线程都可以通过{@link WorkStealingDeque#steal()}从头部窃取，窃取者之间通过CAS top竞争
+ * 底层为循环数组，满时由所有者扩容为二倍，旧数组保持不变，正在读取旧数组的窃取者依然能读到正确的元素
+ * 被窃取的槽位不会立即置空（窃取者置空可能覆盖所有者新写入的元素），下一圈写入时才会被覆盖
+ *
+ * @param <E>
+ */
+public class WorkStealingDeque<E> {
+    private static final int DEFAULT_INITIAL_CAPACITY = 32;
+    private static final AtomicLongFieldUpdater<WorkStealingDeque> TOP =
+            AtomicLongFieldUpdater.newUpdater(WorkStealingDeque.class, "top");
+
+    private static final class CircularArray<E> {
+        final int mask;
+        final AtomicReferenceArray<E> array;
+
+        CircularArray(int capacity) {
+            mask = capacity - 1;
+            array = new AtomicReferenceArray<>(capacity);
+        }
+
+        int capacity() {
+            return mask + 1;
+        }
+
+        E get(long i) {
+            return array.get((int) i & mask);
+        }
+
+        void set(long i, E e) {
+            array.set((int) i & mask, e);
+        }
+
+        void lazySet(long i, E e) {
+            array.lazySet((int) i & mask, e);
+        }
+
+        /**
+         * 扩容为二倍，拷贝[top, bottom)之间的元素
+         */
+        CircularArray<E> grow(long bottom, long top) {
+            CircularArray<E> newArray = new CircularArray<>(capacity() << 1);
+            for (long i = top; i < bottom; i++) {
+                newArray.lazySet(i, get(i));
+            }
+            return newArray;
+        }
+    }
+
+    /**
+     * 窃取端，所有线程通过CAS推进
+     */
+    private volatile long top;
+    /**
+     * 所有者端，只有所有者线程写入
+     */
+    private volatile long bottom;
+    private volatile CircularArray<E> array;
+
+    public WorkStealingDeque() {
+        this(DEFAULT_INITIAL_CAPACITY);
+    }
+
+    /**
+     * @param initialCapacity 初始容量，会向上取整为2的幂
+     */
+    public WorkStealingDeque(int initialCapacity) {
+        if (initialCapacity < 0) throw new RuntimeException("initialCapacity must be ge zero");
+        int capacity = initialCapacity <= 1 ? 1 : Integer.highestOneBit(initialCapacity - 1) << 1;
+        array = new CircularArray<>(capacity);
+    }
+
+    /**
+     * 尾部入队，只能由所有者线程调用
+     *
+     * @param e 不允许为null（null表示队列为空或窃取失败）
+     */
+    public void offerLast(E e) {
+        if (e == null) throw new NullPointerException("element must not be null");
+        long b = bottom;
+        long t = top;
+        CircularArray<E> a = array;
+        if (b - t >= a.capacity()) {
+            if (a.capacity() >= 1 << 30) throw new RuntimeException("deque too big");
+            a = a.grow(b, t);
+            array = a;
+        }
+        a.lazySet(b, e);
+        //bottom的volatile写保证元素和新数组对窃取者可见
+        bottom = b + 1;
+    }
+
+    /**
+     * 尾部出队，只能由所有者线程调用
+     *
+     * @return 队列为空，或最后一个元素被窃取者抢走时返回null
+     */
+    public E pollLast() {
+        long b = bottom - 1;
+        CircularArray<E> a = array;
+        //先写bottom再读top（都是volatile，不会重排），与steal中先读top再读bottom相对应
+        bottom = b;
+        long t = top;
+        if (t > b) {
+            //原本就为空，恢复bottom
+            bottom = t;
+            return null;
+        }
+        E e = a.get(b);
+        if (t < b) {
+            //至少还剩一个元素，不会与窃取者冲突
+            a.lazySet(b, null);
+            return e;
+        }
+        //只剩最后一个元素，与窃取者竞争
+        if (TOP.compareAndSet(this, t, t + 1)) {
+            a.lazySet(b, null);
+        } else {
+            e = null;
+        }
+        bottom = t + 1;
+        return e;
+    }
+
+    /**
+     * 从头部窃取，任意线程都可以调用
+     *
+     * @return 队列为空，或与其他线程竞争失败时返回null，调用方可以稍后重试
+     */
+    public E steal() {
+        long t = top;
+        long b = bottom;
+        if (t >= b) return null;
+        //在读取bottom之后读取数组，保证能看到位置t对应的数组
+        CircularArray<E> a = array;
+        E e = a.get(t);
+        if (!TOP.compareAndSet(this, t, t + 1)) return null;
+        return e;
+    }
+
+    /**
+     * 元素数量，并发修改时为近似值
+     *
+     * @return
+     */
+    public int size() {
+        long n = bottom - top;
+        return n < 0 ? 0 : (int) n;
+    }
+
+    public boolean isEmpty() {
+        return bottom - top <= 0;
+    }
+}
@@ -0,0 +1,270 @@
+package pers.fw.data_structure.heap;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 线程安全的阻塞优先队列，内部包装一个{@link Heap}
+ * 与整体加synchronized不同，这里使用两把锁（思路与{@link java.util.concurrent.LinkedBlockingQueue}相同）：
+ * putLock：只保护一个入队缓冲区，入队时仅追加到缓冲区，O(1)，不接触堆，因此生产者之间只在追加这一步上竞争，也不会被出队阻塞；
+ * takeLock：保护堆，读取堆顶的操作（peek、poll、take、drainTo）在这把锁下先把缓冲区中的元素批量并入堆，再读取/删除堆顶
+ * 元素数量使用原子变量维护，入队时若队列由空变为非空才需要唤醒消费者
+ *
+ * @param <E>
+ */
+public class BlockingHeap<E extends Comparable<E>> {
+    private static final int DEFAULT_BUFFER_CAPACITY = 64;
+
+    /**
+     * 由takeLock保护
+     */
+    private final Heap<E> heap;
+    /**
+     * 入队缓冲区，由putLock保护；spare在并入堆时与buffer交换，由takeLock保护
+     */
+    private Object[] buffer = new Object[DEFAULT_BUFFER_CAPACITY];
+    private int bufferSize;
+    private Object[] spare = new Object[DEFAULT_BUFFER_CAPACITY];
+
+    private final AtomicInteger count = new AtomicInteger();
+    private final ReentrantLock putLock = new ReentrantLock();
+    private final ReentrantLock takeLock = new ReentrantLock();
+    private final Condition notEmpty = takeLock.newCondition();
+
+    /**
+     * @param heap 决定出队顺序（最小堆/最大堆）；之后只能通过该队列访问
+     */
+    public BlockingHeap(Heap<E> heap) {
+        if (heap == null) throw new NullPointerException("heap must not be null");
+        this.heap = heap;
+        count.set(heap.size());
+    }
+
+    /**
+     * 入队，队列无界，所以总是成功
+     *
+     * @param e
+     * @return true
+     */
+    public boolean offer(E e) {
+        if (e == null) throw new NullPointerException("element must not be null");
+        int c;
+        putLock.lock();
+        try {
+            if (bufferSize == buffer.length) {
+                buffer = Arrays.copyOf(buffer, buffer.length << 1);
+            }
+            buffer[bufferSize++] = e;
+            c = count.getAndIncrement();
+        } finally {
+            putLock.unlock();
+        }
+        if (c == 0) signalNotEmpty();
+        return true;
+    }
+
+    /**
+     * 入队，队列无界，不会阻塞
+     *
+     * @param e
+     */
+    public void put(E e) {
+        offer(e);
+    }
+
+    private void signalNotEmpty() {
+        takeLock.lock();
+        try {
+            notEmpty.signal();
+        } finally {
+            takeLock.unlock();
+        }
+    }
+
+    /**
+     * 将缓冲区中的元素并入堆，需持有takeLock
+     */
+    private void mergeBuffer() {
+        Object[] pending;
+        int pendingSize;
+        putLock.lock();
+        try {
+            if (bufferSize == 0) return;
+            pending = buffer;
+            pendingSize = bufferSize;
+            buffer = spare;
+            bufferSize = 0;
+        } finally {
+            putLock.unlock();
+        }
+        for (int i = 0; i < pendingSize; i++) {
+            heap.add((E) pending[i]);
+            pending[i] = null;
+        }
+        spare = pending;
+    }
+
+    /**
+     * 出队，需持有takeLock且count大于0
+     *
+     * @return
+     */
+    private E dequeue() {
+        mergeBuffer();
+        E e = heap.pop();
+        int c = count.getAndDecrement();
+        //还有元素，继续唤醒其他等待的消费者
+        if (c > 1) notEmpty.signal();
+        return e;
+    }
+
+    /**
+     * 获取并删除堆顶元素，队列为空时返回null
+     *
+     * @return
+     */
+    public E poll() {
+        if (count.get() == 0) return null;
+        takeLock.lock();
+        try {
+            return count.get() > 0 ? dequeue() : null;
+        } finally {
+            takeLock.unlock();
+        }
+    }
+
+    /**
+     * 获取并删除堆顶元素，队列为空时等待
+     *
+     * @return
+     * @throws InterruptedException
+     */
+    public E take() throws InterruptedException {
+        takeLock.lockInterruptibly();
+        try {
+            while (count.get() == 0) {
+                notEmpty.await();
+            }
+            return dequeue();
+        } finally {
+            takeLock.unlock();
+        }
+    }
+
+    /**
+     * 获取并删除堆顶元素，队列为空时最多等待timeout
+     *
+     * @param timeout
+     * @param unit
+     * @return 超时返回null
+     * @throws InterruptedException
+     */
+    public E poll(long timeout, TimeUnit unit) throws InterruptedException {
+        long nanos = unit.toNanos(timeout);
+        takeLock.lockInterruptibly();
+        try {
+            while (count.get() == 0) {
+                if (nanos <= 0) return null;
+                nanos = notEmpty.awaitNanos(nanos);
+            }
+            return dequeue();
+        } finally {
+            takeLock.unlock();
+        }
+    }
+
+    /**
+     * 获取堆顶元素但不删除，队列为空时返回null
+     *
+     * @return
+     */
+    public E peek() {
+        if (count.get() == 0) return null;
+        takeLock.lock();
+        try {
+            if (count.get() == 0) return null;
+            mergeBuffer();
+            return heap.top();
+        } finally {
+            takeLock.unlock();
+        }
+    }
+
+    /**
+     * 按出队顺序批量取出所有元素
+     *
+     * @param collection
+     * @return 取出的元素数量
+     */
+    public int drainTo(Collection<? super E> collection) {
+        return drainTo(collection, Integer.MAX_VALUE);
+    }
+
+    /**
+     * 按出队顺序批量取出最多maxElements个元素，整个过程只加一次锁
+     *
+     * @param collection
+     * @param maxElements
+     * @return 取出的元素数量
+     */
+    public int drainTo(Collection<? super E> collection, int maxElements) {
+        if (collection == null) throw new NullPointerException("collection must not be null");
+        if (maxElements <= 0) return 0;
+        takeLock.lock();
+        try {
+            int n = Math.min(maxElements, count.get());
+            if (n == 0) return 0;
+            mergeBuffer();
+            int i = 0;
+            try {
+                while (i < n) {
+                    //先放入集合再删除堆顶，collection.add抛出异常时该元素仍留在堆中
+                    collection.add(heap.top());
+                    heap.removeTop();
+                    i++;
+                }
+                return n;
+            } finally {
+                //collection.add抛出异常时，也要按实际取出的数量更新count
+                if (i > 0) {
+                    int c = count.getAndAdd(-i);
+                    if (c > i) notEmpty.signal();
+                }
+            }
+        } finally {
+            takeLock.unlock();
+        }
+    }
+
+    /**
+     * 清空队列，锁顺序与出队时相同：先takeLock后putLock
+     */
+    public void clear() {
+        takeLock.lock();
+        try {
+            putLock.lock();
+            try {
+                Arrays.fill(buffer, 0, bufferSize, null);
+                bufferSize = 0;
+                heap.clear();
+                count.set(0);
+            } finally {
+                putLock.unlock();
+            }
+        } finally {
+            takeLock.unlock();
+        }
+    }
+
+    public int size() {
+        return count.get();
+    }
+
+    public boolean isEmpty() {
+        return count.get() == 0;
+    }
+}
@@ -0,0 +1,112 @@
+package pers.fw.data_structure.heap;
+
+import java.util.Collection;
+import java.util.Iterator;
+
+/**
+ * d叉堆抽象类
+ * 与{@link Heap}的数组布局相同（elements[0]不使用，元素从elements[1]开始），但每个节点有arity个子节点：
+ * 节点k的子节点为 arity*(k-1)+2 ~ arity*(k-1)+arity+1，父节点为 (k-2)/arity+1
+ * 叉数越大树越矮：上浮（add）的比较次数更少；下沉（pop）每层比较次数变多但层数变少，且同一节点的子节点在数组中相邻，通常位于同一缓存行，
+ * 所以元素数量较大时4叉、8叉堆往往比二叉堆更快
+ * 下沉、上浮时采用“空穴”方式移动元素，只在最终位置写入一次
+ *
+ * @param <E>
+ */
+public abstract class DaryHeap<E extends Comparable<E>> extends Heap<E> {
+    protected final int arity;
+    /**
+     * 叉数为2的幂时用移位代替乘除，否则为-1
+     */
+    private final int shift;
+
+    public DaryHeap(int arity) {
+        super();
+        this.arity = checkArity(arity);
+        this.shift = shiftOf(arity);
+    }
+
+    public DaryHeap(int arity, int initialCapacity) {
+        super(initialCapacity);
+        this.arity = checkArity(arity);
+        this.shift = shiftOf(arity);
+    }
+
+    /**
+     * 父类的数组构造器会在子类字段初始化前调用heapify，所以这里先分配数组，确定叉数后再拷贝元素并调整
+     *
+     * @param arity
+     * @param dataArray
+     */
+    public DaryHeap(int arity, E[] dataArray) {
+        super(lengthOf(dataArray));
+        this.arity = checkArity(arity);
+        this.shift = shiftOf(arity);
+        checkDataArray(dataArray);
+        System.arraycopy(dataArray, 0, elements, 1, dataArray.length);
+        size = dataArray.length;
+        heapify();
+    }
+
+    public DaryHeap(int arity, Collection<E> collection) {
+        super(collection.size());
+        this.arity = checkArity(arity);
+        this.shift = shiftOf(arity);
+        Iterator<E> iterator = collection.iterator();
+        for (int i = 1; iterator.hasNext(); i++) {
+            E e = iterator.next();
+            if (e == null) throw new NullPointerException("element must not be null");
+            elements[i] = e;
+        }
+        size = collection.size();
+        heapify();
+    }
+
+    private static int lengthOf(Object[] dataArray) {
+        if (dataArray == null) throw new NullPointerException("dataArray must not be null");
+        return dataArray.length;
+    }
+
+    private static int checkArity(int arity) {
+        if (arity < 2) throw new RuntimeException("arity must be ge 2");
+        return arity;
+    }
+
+    private static int shiftOf(int arity) {
+        return Integer.bitCount(arity) == 1 ? Integer.numberOfTrailingZeros(arity) : -1;
+    }
+
+    public int arity() {
+        return arity;
+    }
+
+    /**
+     * 节点k的父节点
+     *
+     * @param k 大于1
+     * @return
+     */
+    protected int parent(int k) {
+        return shift >= 0 ? ((k - 2) >> shift) + 1 : (k - 2) / arity + 1;
+    }
+
+    /**
+     * 节点k的第一个子节点，使用long计算以免元素很多时溢出
+     *
+     * @param k
+     * @return
+     */
+    protected long firstChild(int k) {
+        return shift >= 0 ? ((long) (k - 1) << shift) + 2 : (long) arity * (k - 1) + 2;
+    }
+
+    /**
+     * 调整堆：从最后一个非叶子节点开始下沉
+     */
+    @Override
+    protected void heapify() {
+        if (size <= 1) return;
+        for (int i = parent(size); i >= 1; i--)
+            fixDown(i);
+    }
+}
@@ -0,0 +1,60 @@
+package pers.fw.data_structure.heap;
+
+import java.util.Collection;
+
+/**
+ * d叉最大堆
+ *
+ * @param <E>
+ */
+public class DaryMaxHeap<E extends Comparable<E>> extends DaryHeap<E> {
+    public DaryMaxHeap(int arity) {
+        super(arity);
+    }
+
+    public DaryMaxHeap(int arity, int initialCapacity) {
+        super(arity, initialCapacity);
+    }
+
+    public DaryMaxHeap(int arity, E[] dataArray) {
+        super(arity, dataArray);
+    }
+
+    public DaryMaxHeap(int arity, Collection<E> collection) {
+        super(arity, collection);
+    }
+
+    @Override
+    protected void fixUp(int k) {
+        E e = (E) elements[k];
+        while (k > 1) {
+            int i = parent(k);
+            E p = (E) elements[i];
+            if (e.compareTo(p) <= 0) break;
+            elements[k] = p;
+            k = i;
+        }
+        elements[k] = e;
+    }
+
+    @Override
+    protected void fixDown(int k) {
+        E e = (E) elements[k];
+        long first;
+        while ((first = firstChild(k)) <= size) {
+            int i = (int) first;
+            int last = (int) Math.min(first + arity - 1, size);
+            E child = (E) elements[i];
+            for (int c = i + 1; c <= last; c++) {
+                if (((E) elements[c]).compareTo(child) > 0) {
+                    i = c;
+                    child = (E) elements[c];
+                }
+            }
+            if (child.compareTo(e) <= 0) break;
+            elements[k] = child;
+            k = i;
+        }
+        elements[k] = e;
+    }
+}
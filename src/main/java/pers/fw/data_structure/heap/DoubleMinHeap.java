@@ -0,0 +1,46 @@
+package pers.fw.data_structure.heap;
+
+/**
+ * double类型的最小堆
+ * 使用 < 比较元素，不支持NaN
+ *
+ * @see MinHeap
+ */
+public class DoubleMinHeap extends DoubleHeap {
+
+    public DoubleMinHeap() {
+    }
+
+    public DoubleMinHeap(int initialCapacity) {
+        super(initialCapacity);
+    }
+
+    public DoubleMinHeap(double[] dataArray) {
+        super(dataArray);
+    }
+
+    public DoubleMinHeap(double[] dataArray, long[] payloadArray) {
+        super(dataArray, payloadArray);
+    }
+
+    @Override
+    protected void fixUp(int k) {
+        while (k > 1) {
+            int i = k >> 1;
+            if (keys[k] >= keys[i]) break;
+            swap(k, i);
+            k = i;
+        }
+    }
+
+    @Override
+    protected void fixDown(int k) {
+        int i;
+        while ((i = k << 1) <= size && i > 0) {
+            i = i == size ? i : (keys[i] <= keys[i + 1] ? i : i + 1);
+            if (keys[i] >= keys[k]) break;
+            swap(i, k);
+            k = i;
+        }
+    }
+}
@@ -2,17 +2,24 @@ package pers.fw.data_structure.heap;
 
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.ConcurrentModificationException;
 import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * 二叉堆抽象类
  * 内部使用数组实现
  * 可根据需要继承该类实现最大堆或最小堆
  * 通过Comparable接口的compareTo方法判断元素大小，所以堆内元素必须实现Comparable接口
+ * 迭代按数组顺序（层序）进行，除第一个元素是堆顶外不保证有序，迭代器是fail-fast的
  *
  * @param <E>
  */
-public abstract class Heap<E extends Comparable<E>> {
+public abstract class Heap<E extends Comparable<E>> implements Iterable<E> {
     /**
      * 默认容量：只有使用无参构造器并且第一次调用add方法才会使用
      */
@@ -24,6 +31,10 @@ public abstract class Heap<E extends Comparable<E>> {
      */
     protected Object[] elements;
     protected int size = 0;
+    /**
+     * 结构修改次数，用于迭代器快速失败
+     */
+    protected int modCount;
 
     public Heap() {
     }
@@ -33,7 +44,7 @@ public abstract class Heap<E extends Comparable<E>> {
         elements = new Object[initialCapacity + 1];
     }
 
-    private void checkDataArray(E[] dataArray) {
+    protected void checkDataArray(E[] dataArray) {
         if (dataArray == null) throw new NullPointerException("dataArray must not be null");
         for (int i = 0; i < dataArray.length; i++) {
             if (dataArray[i] == null) throw new NullPointerException("element must not be null");
@@ -96,6 +107,7 @@ public abstract class Heap<E extends Comparable<E>> {
             elements = Arrays.copyOf(elements, 2 * elements.length);
         }
         elements[++size] = e;
+        ++modCount;
         fixUp(size);
     }
 
@@ -118,7 +130,24 @@ public abstract class Heap<E extends Comparable<E>> {
         assert size > 0;
         elements[1] = elements[size];
         elements[size--] = null;
+        ++modCount;
+        fixDown(1);
+    }
+
+    /**
+     * 用e替换堆顶元素并下沉，相当于pop后再add，但只需一次下沉
+     *
+     * @param e
+     * @return 被替换的堆顶元素
+     */
+    public E replaceTop(E e) {
+        assert size > 0;
+        if (e == null) throw new NullPointerException("element must not be null");
+        E top = (E) elements[1];
+        elements[1] = e;
+        ++modCount;
         fixDown(1);
+        return top;
     }
 
     /**
@@ -139,6 +168,7 @@ public abstract class Heap<E extends Comparable<E>> {
             elements[i] = null;
         }
         size = 0;
+        ++modCount;
     }
 
     protected void swap(int i, int j) {
@@ -154,4 +184,95 @@ public abstract class Heap<E extends Comparable<E>> {
     public boolean isEmpty() {
         return size == 0;
     }
+
+    /**
+     * 按数组顺序迭代
+     *
+     * @return
+     */
+    @Override
+    public Iterator<E> iterator() {
+        return new Iterator<E>() {
+            private int cursor = 1;
+            private final int expectedModCount = modCount;
+
+            @Override
+            public boolean hasNext() {
+                return cursor <= size;
+            }
+
+            @Override
+            public E next() {
+                if (modCount != expectedModCount) throw new ConcurrentModificationException();
+                if (cursor > size) throw new NoSuchElementException();
+                return (E) elements[cursor++];
+            }
+        };
+    }
+
+    @Override
+    public Spliterator<E> spliterator() {
+        return new HeapSpliterator(1, size + 1, modCount);
+    }
+
+    public Stream<E> stream() {
+        return StreamSupport.stream(spliterator(), false);
+    }
+
+    public Stream<E> parallelStream() {
+        return StreamSupport.stream(spliterator(), true);
+    }
+
+    /**
+     * 按数组下标[origin, fence)划分，拆分时直接二分
+     */
+    private final class HeapSpliterator implements Spliterator<E> {
+        private int origin;
+        private final int fence;
+        private final int expectedModCount;
+
+        HeapSpliterator(int origin, int fence, int expectedModCount) {
+            this.origin = origin;
+            this.fence = fence;
+            this.expectedModCount = expectedModCount;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super E> action) {
+            if (action == null) throw new NullPointerException();
+            if (modCount != expectedModCount) throw new ConcurrentModificationException();
+            if (origin >= fence) return false;
+            action.accept((E) elements[origin++]);
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super E> action) {
+            if (action == null) throw new NullPointerException();
+            Object[] a = elements;
+            for (; origin < fence; origin++) {
+                action.accept((E) a[origin]);
+            }
+            if (modCount != expectedModCount) throw new ConcurrentModificationException();
+        }
+
+        @Override
+        public Spliterator<E> trySplit() {
+            int mid = (origin + fence) >>> 1;
+            if (mid <= origin) return null;
+            HeapSpliterator prefix = new HeapSpliterator(origin, mid, expectedModCount);
+            origin = mid;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            return fence - origin;
+        }
+
+        @Override
+        public int characteristics() {
+            return SIZED | SUBSIZED | NONNULL;
+        }
+    }
 }
@@ -0,0 +1,75 @@
+package pers.fw.data_structure.heap;
+
+import pers.fw.data_structure.SnapshotIO;
+import pers.fw.data_structure.interf.KeyCodec;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.nio.file.Path;
+
+/**
+ * 堆快照
+ * 格式：魔数、版本、堆的类名、叉数（二叉堆为2）、元素数量，之后按数组顺序（elements[1..size]）排列的元素编码
+ * 数组顺序本身就满足堆的性质，恢复时按原样放回数组即可，O(n)且不需要heapify，不调用compareTo
+ */
+public final class HeapSnapshot {
+    private static final int MAGIC = 0x48454150;
+    private static final int VERSION = 1;
+
+    private HeapSnapshot() {
+    }
+
+    public static <E extends Comparable<E>> void write(Heap<E> heap, KeyCodec<E> codec, Path path) throws IOException {
+        try (SnapshotIO.Writer writer = new SnapshotIO.Writer(path)) {
+            writer.writeInt(MAGIC);
+            writer.writeInt(VERSION);
+            writer.writeString(heap.getClass().getName());
+            writer.writeInt(heap instanceof DaryHeap ? ((DaryHeap<E>) heap).arity() : 2);
+            writer.writeInt(heap.size);
+            for (int i = 1; i <= heap.size; i++) {
+                writer.write((E) heap.elements[i], codec);
+            }
+            writer.commit();
+        }
+    }
+
+    /**
+     * 按快照头部记录的类名创建堆：d叉堆使用(int arity, int initialCapacity)构造器，其他堆使用(int initialCapacity)构造器
+     * 类名必须是{@link Heap}的子类，且能由加载{@link Heap}的类加载器加载
+     * 快照必须由{@link HeapSnapshot#write}生成且使用相同的编解码器，恢复时不再检查堆的性质
+     *
+     * @param path
+     * @param codec
+     * @return
+     */
+    public static <E extends Comparable<E>> Heap<E> read(Path path, KeyCodec<E> codec) throws IOException {
+        try (SnapshotIO.Reader reader = new SnapshotIO.Reader(path)) {
+            if (reader.readInt() != MAGIC) throw new IOException("not a heap snapshot: " + path);
+            int version = reader.readInt();
+            if (version != VERSION) throw new IOException("unsupported snapshot version " + version);
+            String className = reader.readString();
+            int arity = reader.readInt();
+            int size = reader.readInt();
+            Heap<E> heap = newHeap(className, arity, size);
+            for (int i = 1; i <= size; i++) {
+                heap.elements[i] = reader.read(codec);
+            }
+            heap.size = size;
+            return heap;
+        }
+    }
+
+    private static <E extends Comparable<E>> Heap<E> newHeap(String className, int arity, int capacity) throws IOException {
+        try {
+            //只加载不初始化，确认是堆之后才调用构造器，快照中伪造的类名不会触发任意类的静态初始化
+            Class<?> clazz = Class.forName(className, false, Heap.class.getClassLoader());
+            if (!Heap.class.isAssignableFrom(clazz)) throw new IOException(className + " is not a heap");
+            if (DaryHeap.class.isAssignableFrom(clazz)) {
+                return (Heap<E>) clazz.getConstructor(int.class, int.class).newInstance(arity, capacity);
+            }
+            return (Heap<E>) clazz.getConstructor(int.class).newInstance(capacity);
+        } catch (ClassNotFoundException | NoSuchMethodException | InstantiationException | IllegalAccessException | InvocationTargetException e) {
+            throw new IOException("cannot create heap " + className, e);
+        }
+    }
+}
@@ -0,0 +1,265 @@
+package pers.fw.data_structure.heap;
+
+import java.util.Arrays;
+
+/**
+ * 索引堆抽象类
+ * 每个元素关联一个非负整数索引（句柄），堆数组的布局与{@link Heap}相同（heap[0]不使用，从heap[1]开始），只不过保存的是索引；
+ * 同时维护索引到堆位置的反向映射positions，因此可以通过索引直接定位元素：
+ * contains为O(1)，decreaseKey、increaseKey、remove均为O(logn)，无需重复插入再跳过过期元素
+ *
+ * @param <E>
+ */
+public abstract class IndexedHeap<E extends Comparable<E>> {
+    /**
+     * 默认容量：只有使用无参构造器并且第一次调用add方法才会使用
+     */
+    private static final int DEFAULT_INITIAL_CAPACITY = 128;
+    private static final int[] EMPTY_HEAP = {0};
+    private static final Object[] EMPTY_KEYS = {};
+    private static final int[] EMPTY_POSITIONS = {};
+
+    /**
+     * 堆数组，保存索引，heap[0]永远不会用到
+     */
+    protected int[] heap;
+    /**
+     * positions[index]为索引在heap中的位置，0表示该索引不在堆中
+     */
+    protected int[] positions;
+    /**
+     * keys[index]为索引对应的元素
+     */
+    protected Object[] keys;
+    protected int size = 0;
+
+    public IndexedHeap() {
+        heap = EMPTY_HEAP;
+        positions = EMPTY_POSITIONS;
+        keys = EMPTY_KEYS;
+    }
+
+    /**
+     * @param maxIndex 预计的最大索引，超过后会自动扩容
+     */
+    public IndexedHeap(int maxIndex) {
+        if (maxIndex < 0) throw new RuntimeException("maxIndex must be ge zero");
+        heap = new int[maxIndex + 2];
+        positions = new int[maxIndex + 1];
+        keys = new Object[maxIndex + 1];
+    }
+
+    /**
+     * 节点k上浮
+     *
+     * @param k
+     */
+    protected abstract void fixUp(int k);
+
+    /**
+     * 节点k下沉
+     *
+     * @param k
+     */
+    protected abstract void fixDown(int k);
+
+    private void checkIndex(int index) {
+        if (index < 0) throw new RuntimeException("index must be ge zero");
+    }
+
+    private void checkKeyNull(E key) {
+        if (key == null) throw new NullPointerException("key must not be null");
+    }
+
+    private void checkContains(int index) {
+        if (!contains(index)) throw new RuntimeException("index " + index + " is not in the heap");
+    }
+
+    private void ensureCapacity(int index) {
+        if (index >= positions.length) {
+            int newLength = Math.max(Math.max(index + 1, positions.length << 1), DEFAULT_INITIAL_CAPACITY);
+            positions = Arrays.copyOf(positions, newLength);
+            keys = Arrays.copyOf(keys, newLength);
+        }
+        if (size + 1 == heap.length) {
+            heap = Arrays.copyOf(heap, Math.max(heap.length << 1, DEFAULT_INITIAL_CAPACITY));
+        }
+    }
+
+    /**
+     * 索引是否在堆中
+     *
+     * @param index
+     * @return
+     */
+    public boolean contains(int index) {
+        return index >= 0 && index < positions.length && positions[index] != 0;
+    }
+
+    /**
+     * 添加索引及其元素
+     *
+     * @param index 不能已在堆中
+     * @param key
+     */
+    public void add(int index, E key) {
+        checkIndex(index);
+        checkKeyNull(key);
+        if (contains(index)) throw new RuntimeException("index " + index + " is already in the heap");
+        ensureCapacity(index);
+        heap[++size] = index;
+        positions[index] = size;
+        keys[index] = key;
+        fixUp(size);
+    }
+
+    /**
+     * 获取索引对应的元素
+     *
+     * @param index
+     * @return 索引不在堆中时返回null
+     */
+    public E keyOf(int index) {
+        return contains(index) ? (E) keys[index] : null;
+    }
+
+    /**
+     * 将索引对应的元素减小为key
+     *
+     * @param index
+     * @param key   必须小于当前元素
+     */
+    public void decreaseKey(int index, E key) {
+        checkContains(index);
+        checkKeyNull(key);
+        if (key.compareTo((E) keys[index]) >= 0) throw new RuntimeException("key must be lt the current key");
+        changeKey(index, key);
+    }
+
+    /**
+     * 将索引对应的元素增大为key
+     *
+     * @param index
+     * @param key   必须大于当前元素
+     */
+    public void increaseKey(int index, E key) {
+        checkContains(index);
+        checkKeyNull(key);
+        if (key.compareTo((E) keys[index]) <= 0) throw new RuntimeException("key must be gt the current key");
+        changeKey(index, key);
+    }
+
+    /**
+     * 修改索引对应的元素：最小堆减小元素/最大堆增大元素时上浮，反之下沉，两者最多只有一个会移动节点
+     *
+     * @param index
+     * @param key
+     */
+    public void changeKey(int index, E key) {
+        checkContains(index);
+        checkKeyNull(key);
+        keys[index] = key;
+        fixUp(positions[index]);
+        fixDown(positions[index]);
+    }
+
+    /**
+     * 删除索引及其元素，索引不在堆中时忽略
+     *
+     * @param index
+     */
+    public void remove(int index) {
+        if (!contains(index)) return;
+        int k = positions[index];
+        swap(k, size);
+        heap[size--] = 0;
+        positions[index] = 0;
+        keys[index] = null;
+        if (k <= size) {
+            int moved = heap[k];
+            fixUp(k);
+            fixDown(positions[moved]);
+        }
+    }
+
+    /**
+     * 获取堆顶元素但不删除
+     *
+     * @return
+     */
+    public E top() {
+        assert size > 0;
+        return (E) keys[heap[1]];
+    }
+
+    /**
+     * 获取堆顶元素的索引但不删除
+     *
+     * @return
+     */
+    public int topIndex() {
+        assert size > 0;
+        return heap[1];
+    }
+
+    /**
+     * 获取并删除堆顶元素
+     *
+     * @return
+     */
+    public E pop() {
+        E key = top();
+        remove(heap[1]);
+        return key;
+    }
+
+    /**
+     * 删除堆顶元素并返回其索引
+     *
+     * @return
+     */
+    public int popIndex() {
+        int index = topIndex();
+        remove(index);
+        return index;
+    }
+
+    /**
+     * 清空堆
+     */
+    public void clear() {
+        for (int i = 1; i <= size; i++) {
+            positions[heap[i]] = 0;
+            keys[heap[i]] = null;
+            heap[i] = 0;
+        }
+        size = 0;
+    }
+
+    /**
+     * 比较堆中位置i和j上的元素
+     *
+     * @param i
+     * @param j
+     * @return
+     */
+    protected int compare(int i, int j) {
+        return ((E) keys[heap[i]]).compareTo((E) keys[heap[j]]);
+    }
+
+    protected void swap(int i, int j) {
+        int tmp = heap[i];
+        heap[i] = heap[j];
+        heap[j] = tmp;
+        positions[heap[i]] = i;
+        positions[heap[j]] = j;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+}
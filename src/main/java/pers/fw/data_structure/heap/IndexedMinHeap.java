@@ -0,0 +1,36 @@
+package pers.fw.data_structure.heap;
+
+/**
+ * 索引最小堆
+ *
+ * @param <E>
+ */
+public class IndexedMinHeap<E extends Comparable<E>> extends IndexedHeap<E> {
+    public IndexedMinHeap() {
+    }
+
+    public IndexedMinHeap(int maxIndex) {
+        super(maxIndex);
+    }
+
+    @Override
+    protected void fixUp(int k) {
+        while (k > 1) {
+            int i = k >> 1;
+            if (compare(k, i) >= 0) break;
+            swap(k, i);
+            k = i;
+        }
+    }
+
+    @Override
+    protected void fixDown(int k) {
+        int i;
+        while ((i = k << 1) <= size && i > 0) {
+            i = i == size ? i : (compare(i, i + 1) <= 0 ? i : i + 1);
+            if (compare(i, k) >= 0) break;
+            swap(i, k);
+            k = i;
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package pers.fw.data_structure.heap;
+
+import java.util.Arrays;
+
+/**
+ * int类型的二叉堆抽象类
+ * 与{@link Heap}的结构相同（keys[0]不使用，元素从keys[1]开始），但直接使用int[]保存元素，避免装箱以及compareTo调用
+ * 可选的附加值（payload）：使用{@link IntHeap#add(int, long)}添加时，会同步维护一个与keys平行的long[]，键值对不需要额外分配对象
+ *
+ * @see Heap
+ */
+public abstract class IntHeap {
+    /**
+     * 默认容量：只有使用无参构造器并且第一次调用add方法才会使用
+     */
+    private static final int DEFAULT_INITIAL_CAPACITY = 128;
+
+    protected int[] keys;
+    /**
+     * 与keys平行的附加值数组，第一次添加附加值时才会初始化
+     */
+    protected long[] payloads;
+    protected int size = 0;
+
+    public IntHeap() {
+    }
+
+    public IntHeap(int initialCapacity) {
+        if (initialCapacity < 0) throw new RuntimeException("initialCapacity must be ge zero");
+        keys = new int[initialCapacity + 1];
+    }
+
+    public IntHeap(int[] dataArray) {
+        if (dataArray == null) throw new NullPointerException("dataArray must not be null");
+        size = dataArray.length;
+        keys = new int[size + 1];
+        System.arraycopy(dataArray, 0, keys, 1, size);
+        heapify();
+    }
+
+    /**
+     * @param dataArray    元素
+     * @param payloadArray 与元素一一对应的附加值
+     */
+    public IntHeap(int[] dataArray, long[] payloadArray) {
+        if (dataArray == null) throw new NullPointerException("dataArray must not be null");
+        if (payloadArray == null) throw new NullPointerException("payloadArray must not be null");
+        if (dataArray.length != payloadArray.length) throw new RuntimeException("payloadArray length must equal dataArray length");
+        size = dataArray.length;
+        keys = new int[size + 1];
+        payloads = new long[size + 1];
+        System.arraycopy(dataArray, 0, keys, 1, size);
+        System.arraycopy(payloadArray, 0, payloads, 1, size);
+        heapify();
+    }
+
+    /**
+     * 节点k上浮
+     *
+     * @param k
+     */
+    protected abstract void fixUp(int k);
+
+    /**
+     * 节点k下沉
+     *
+     * @param k
+     */
+    protected abstract void fixDown(int k);
+
+    /**
+     * 调整堆
+     */
+    protected void heapify() {
+        for (int i = size / 2; i >= 1; i--)
+            fixDown(i);
+    }
+
+    private void ensureCapacity() {
+        if (keys == null) {
+            keys = new int[DEFAULT_INITIAL_CAPACITY];
+        }
+        if (size + 1 == keys.length) {
+            keys = Arrays.copyOf(keys, 2 * keys.length);
+            if (payloads != null) payloads = Arrays.copyOf(payloads, keys.length);
+        }
+    }
+
+    /**
+     * 添加元素，若数组已满，则扩充二倍长度
+     *
+     * @param key
+     */
+    public void add(int key) {
+        ensureCapacity();
+        keys[++size] = key;
+        //removeTop、clear不清理附加值数组，需覆盖该位置上残留的旧附加值
+        if (payloads != null) payloads[size] = 0;
+        fixUp(size);
+    }
+
+    /**
+     * 添加带附加值的元素
+     *
+     * @param key
+     * @param payload
+     */
+    public void add(int key, long payload) {
+        ensureCapacity();
+        if (payloads == null) payloads = new long[keys.length];
+        keys[++size] = key;
+        payloads[size] = payload;
+        fixUp(size);
+    }
+
+    /**
+     * 获取并删除堆顶元素
+     *
+     * @return
+     */
+    public int pop() {
+        assert size > 0;
+        int key = keys[1];
+        removeTop();
+        return key;
+    }
+
+    /**
+     * 移除堆顶元素
+     */
+    public void removeTop() {
+        assert size > 0;
+        keys[1] = keys[size];
+        if (payloads != null) payloads[1] = payloads[size];
+        size--;
+        fixDown(1);
+    }
+
+    /**
+     * 获取堆顶但不删除
+     *
+     * @return
+     */
+    public int top() {
+        assert size > 0;
+        return keys[1];
+    }
+
+    /**
+     * 获取堆顶元素的附加值，未添加过附加值时为0
+     *
+     * @return
+     */
+    public long topPayload() {
+        assert size > 0;
+        return payloads == null ? 0 : payloads[1];
+    }
+
+    /**
+     * 清空堆：基本类型无需置空引用，只重置size
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    protected void swap(int i, int j) {
+        int tmp = keys[i];
+        keys[i] = keys[j];
+        keys[j] = tmp;
+        if (payloads != null) {
+            long p = payloads[i];
+            payloads[i] = payloads[j];
+            payloads[j] = p;
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+}
@@ -0,0 +1,45 @@
+package pers.fw.data_structure.heap;
+
+/**
+ * int类型的最小堆
+ *
+ * @see MinHeap
+ */
+public class IntMinHeap extends IntHeap {
+
+    public IntMinHeap() {
+    }
+
+    public IntMinHeap(int initialCapacity) {
+        super(initialCapacity);
+    }
+
+    public IntMinHeap(int[] dataArray) {
+        super(dataArray);
+    }
+
+    public IntMinHeap(int[] dataArray, long[] payloadArray) {
+        super(dataArray, payloadArray);
+    }
+
+    @Override
+    protected void fixUp(int k) {
+        while (k > 1) {
+            int i = k >> 1;
+            if (keys[k] >= keys[i]) break;
+            swap(k, i);
+            k = i;
+        }
+    }
+
+    @Override
+    protected void fixDown(int k) {
+        int i;
+        while ((i = k << 1) <= size && i > 0) {
+            i = i == size ? i : (keys[i] <= keys[i + 1] ? i : i + 1);
+            if (keys[i] >= keys[k]) break;
+            swap(i, k);
+            k = i;
+        }
+    }
+}
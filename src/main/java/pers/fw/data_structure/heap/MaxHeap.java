@@ -29,6 +29,7 @@ public class MaxHeap<E extends Comparable<E>> extends Heap<E> {
         while (k > 1) {
             int i = k >> 1;
             if (((E) elements[k]).compareTo((E) elements[i]) > 0) swap(k, i);
+            else break;
             k = i;
         }
     }
@@ -39,6 +40,7 @@ public class MaxHeap<E extends Comparable<E>> extends Heap<E> {
         while ((i = k << 1) <= size && i > 0) {
             i = i == size ? i : (((E) elements[i]).compareTo((E) elements[i + 1]) >= 0 ? i : i + 1);
             if (((E) elements[i]).compareTo((E) elements[k]) > 0) swap(i, k);
+            else break;
             k = i;
         }
     }
@@ -0,0 +1,222 @@
+package pers.fw.data_structure.heap;
+
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 松弛（relaxed）的并发优先队列：MultiQueue
+ * 由 c*threads 个各自加锁的二叉堆（分片）组成：
+ * 入队：随机选一个分片，tryLock成功则插入，失败换一个分片重试；
+ * 出队：随机取两个分片，比较两者的堆顶（无锁读取volatile缓存），从较优的分片出队；
+ * 出队的元素不一定是全局最优，而是“接近最优”，换来的是几乎没有锁竞争，吞吐量随线程数近似线性增长
+ * 松弛程度由c调节：c越大竞争越少，但出队元素的排名误差（rank error，见{@link MultiQueue#rankError(Comparable)}）越大
+ *
+ * @param <E>
+ */
+public class MultiQueue<E extends Comparable<E>> {
+    private static final int DEFAULT_C = 2;
+
+    private static final class Shard<E extends Comparable<E>> {
+        final ReentrantLock lock = new ReentrantLock();
+        final Heap<E> heap;
+        /**
+         * 堆顶的缓存，分片为空时为null，修改堆后在锁内更新
+         */
+        volatile E top;
+        volatile int size;
+
+        Shard(Heap<E> heap) {
+            this.heap = heap;
+        }
+
+        void afterUpdate() {
+            size = heap.size();
+            top = heap.isEmpty() ? null : heap.top();
+        }
+    }
+
+    private final Shard<E>[] shards;
+    /**
+     * true：优先出队最大元素；false：优先出队最小元素
+     */
+    private final boolean maxFirst;
+
+    /**
+     * 最小优先，每个线程2个分片
+     *
+     * @param threads 预计并发访问的线程数
+     */
+    public MultiQueue(int threads) {
+        this(threads, DEFAULT_C, false);
+    }
+
+    /**
+     * @param threads  预计并发访问的线程数
+     * @param c        每个线程对应的分片数，即松弛系数
+     * @param maxFirst true为最大优先，false为最小优先
+     */
+    public MultiQueue(int threads, int c, boolean maxFirst) {
+        if (threads <= 0) throw new RuntimeException("threads must be gt zero");
+        if (c <= 0) throw new RuntimeException("c must be gt zero");
+        int n = Math.max(2, threads * c);
+        this.maxFirst = maxFirst;
+        shards = new Shard[n];
+        for (int i = 0; i < n; i++) {
+            Heap<E> heap = maxFirst ? new MaxHeap<E>() : new MinHeap<E>();
+            shards[i] = new Shard<>(heap);
+        }
+    }
+
+    /**
+     * a是否优于b，null视为最差
+     *
+     * @param a
+     * @param b
+     * @return
+     */
+    private boolean better(E a, E b) {
+        if (a == null) return false;
+        if (b == null) return true;
+        int compare = a.compareTo(b);
+        return maxFirst ? compare > 0 : compare < 0;
+    }
+
+    public void offer(E e) {
+        if (e == null) throw new NullPointerException("element must not be null");
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        while (true) {
+            Shard<E> shard = shards[random.nextInt(shards.length)];
+            if (!shard.lock.tryLock()) continue;
+            try {
+                shard.heap.add(e);
+                shard.afterUpdate();
+                return;
+            } finally {
+                shard.lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * 从随机两个分片中较优的一个出队
+     * 连续多次抽到的都是空分片时，退化为逐个检查所有分片，全部为空才返回null
+     *
+     * @return 队列为空时返回null
+     */
+    public E poll() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int n = shards.length;
+        int emptySamples = 0;
+        while (true) {
+            int i = random.nextInt(n);
+            int j = random.nextInt(n - 1);
+            if (j >= i) j++;
+            Shard<E> shard = better(shards[j].top, shards[i].top) ? shards[j] : shards[i];
+            if (shard.top == null) {
+                if (++emptySamples >= n) return pollAny(random.nextInt(n));
+                continue;
+            }
+            if (!shard.lock.tryLock()) continue;
+            try {
+                if (shard.heap.isEmpty()) continue;
+                E e = shard.heap.pop();
+                shard.afterUpdate();
+                return e;
+            } finally {
+                shard.lock.unlock();
+            }
+        }
+    }
+
+    private E pollAny(int start) {
+        for (int k = 0; k < shards.length; k++) {
+            Shard<E> shard = shards[(start + k) % shards.length];
+            if (shard.top == null) continue;
+            shard.lock.lock();
+            try {
+                if (shard.heap.isEmpty()) continue;
+                E e = shard.heap.pop();
+                shard.afterUpdate();
+                return e;
+            } finally {
+                shard.lock.unlock();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 查看随机两个分片中较优的堆顶，与poll相同，结果是近似的
+     *
+     * @return 抽到的分片都为空时返回null
+     */
+    public E peek() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        E a = shards[random.nextInt(shards.length)].top;
+        E b = shards[random.nextInt(shards.length)].top;
+        return better(a, b) ? a : b;
+    }
+
+    /**
+     * 排名误差：当前队列中严格优于e的元素数量；在poll之后立刻调用，即为本次出队的排名误差（严格优先队列恒为0）
+     * 逐个锁住分片统计，堆中某节点不优于e时其整棵子树都不会优于e，直接剪枝，所以代价与结果大小成正比
+     * 并发修改时结果是近似值，主要用于评估松弛带来的质量损失
+     *
+     * @param e
+     * @return
+     */
+    public int rankError(E e) {
+        int rank = 0;
+        int[] stack = new int[64];
+        for (Shard<E> shard : shards) {
+            shard.lock.lock();
+            try {
+                Heap<E> heap = shard.heap;
+                int top = 0;
+                if (heap.size > 0) stack[top++] = 1;
+                while (top > 0) {
+                    int k = stack[--top];
+                    if (!better((E) heap.elements[k], e)) continue;
+                    rank++;
+                    for (int child = k << 1; child <= (k << 1) + 1 && child <= heap.size; child++) {
+                        if (top == stack.length) stack = Arrays.copyOf(stack, top << 1);
+                        stack[top++] = child;
+                    }
+                }
+            } finally {
+                shard.lock.unlock();
+            }
+        }
+        return rank;
+    }
+
+    /**
+     * 各分片元素数量之和，并发修改时为近似值
+     *
+     * @return
+     */
+    public int size() {
+        int size = 0;
+        for (Shard<E> shard : shards) {
+            size += shard.size;
+        }
+        return size;
+    }
+
+    public boolean isEmpty() {
+        for (Shard<E> shard : shards) {
+            if (shard.top != null) return false;
+        }
+        return true;
+    }
+
+    /**
+     * 分片数量
+     *
+     * @return
+     */
+    public int shardCount() {
+        return shards.length;
+    }
+}
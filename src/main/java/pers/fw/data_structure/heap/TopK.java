@@ -0,0 +1,131 @@
+package pers.fw.data_structure.heap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 流式Top-K收集器：最多保存k个元素
+ * 求最大的k个元素时内部使用最小堆，堆顶即当前第k大的元素（门槛），反之使用最大堆；
+ * 新元素只需与堆顶比较一次，不如堆顶的直接淘汰，否则用{@link Heap#replaceTop(Object)}替换堆顶并下沉一次
+ * 非线程安全：多线程场景下每个线程各自收集，最后通过{@link TopK#merge(TopK)}合并
+ *
+ * @param <E>
+ */
+public class TopK<E extends Comparable<E>> {
+    private final int k;
+    /**
+     * true：最大的k个；false：最小的k个
+     */
+    private final boolean largest;
+    private final Heap<E> heap;
+
+    private TopK(int k, boolean largest) {
+        if (k <= 0) throw new RuntimeException("k must be gt zero");
+        this.k = k;
+        this.largest = largest;
+        heap = largest ? new MinHeap<>(k) : new MaxHeap<>(k);
+    }
+
+    /**
+     * 收集最大的k个元素
+     *
+     * @param k
+     * @param <E>
+     * @return
+     */
+    public static <E extends Comparable<E>> TopK<E> largest(int k) {
+        return new TopK<>(k, true);
+    }
+
+    /**
+     * 收集最小的k个元素
+     *
+     * @param k
+     * @param <E>
+     * @return
+     */
+    public static <E extends Comparable<E>> TopK<E> smallest(int k) {
+        return new TopK<>(k, false);
+    }
+
+    /**
+     * 提交一个元素
+     *
+     * @param e
+     * @return 元素是否进入了当前的Top-K
+     */
+    public boolean offer(E e) {
+        if (e == null) throw new NullPointerException("element must not be null");
+        if (heap.size() < k) {
+            heap.add(e);
+            return true;
+        }
+        int compare = e.compareTo(heap.top());
+        //与门槛相等时保留先到的元素
+        if (largest ? compare <= 0 : compare >= 0) return false;
+        heap.replaceTop(e);
+        return true;
+    }
+
+    public void offerAll(Iterable<? extends E> iterable) {
+        for (E e : iterable) {
+            offer(e);
+        }
+    }
+
+    /**
+     * 合并另一个收集器（通常来自其他线程）的结果，合并后other不变
+     *
+     * @param other k和方向必须相同
+     * @return this
+     */
+    public TopK<E> merge(TopK<E> other) {
+        if (other.k != k || other.largest != largest) throw new RuntimeException("can not merge TopK with different k or order");
+        for (int i = 1; i <= other.heap.size; i++) {
+            offer((E) other.heap.elements[i]);
+        }
+        return this;
+    }
+
+    /**
+     * 当前门槛：已收集满k个时为第k个元素，此后不优于它的元素都会被淘汰
+     *
+     * @return 未满k个时返回null
+     */
+    public E threshold() {
+        return heap.size() < k ? null : heap.top();
+    }
+
+    /**
+     * 排好序的结果：最大的k个按降序，最小的k个按升序，O(klogk)
+     *
+     * @return
+     */
+    public List<E> toSortedList() {
+        Object[] array = Arrays.copyOfRange(heap.elements, 1, heap.size() + 1);
+        Arrays.sort(array, largest ? Collections.reverseOrder() : null);
+        List<E> list = new ArrayList<>(array.length);
+        for (Object o : array) {
+            list.add((E) o);
+        }
+        return list;
+    }
+
+    public int k() {
+        return k;
+    }
+
+    public int size() {
+        return heap.size();
+    }
+
+    public boolean isEmpty() {
+        return heap.isEmpty();
+    }
+
+    public void clear() {
+        heap.clear();
+    }
+}
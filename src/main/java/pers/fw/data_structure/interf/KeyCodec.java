@@ -0,0 +1,124 @@
+package pers.fw.data_structure.interf;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 元素的二进制编解码器，用于快照等持久化场景
+ * write写入的字节数必须等于size的返回值，read从同一位置读出的元素应与写入的相等
+ *
+ * @param <T>
+ */
+public interface KeyCodec<T> {
+    /**
+     * 编码后的字节数
+     *
+     * @param t
+     * @return
+     */
+    int size(T t);
+
+    /**
+     * 从buffer的当前位置写入
+     *
+     * @param t
+     * @param buffer
+     */
+    void write(T t, ByteBuffer buffer);
+
+    /**
+     * 从buffer的当前位置读出一个元素
+     *
+     * @param buffer
+     * @return
+     */
+    T read(ByteBuffer buffer);
+
+    /**
+     * 定长4字节
+     */
+    KeyCodec<Integer> INT = new KeyCodec<Integer>() {
+        @Override
+        public int size(Integer i) {
+            return Integer.BYTES;
+        }
+
+        @Override
+        public void write(Integer i, ByteBuffer buffer) {
+            buffer.putInt(i);
+        }
+
+        @Override
+        public Integer read(ByteBuffer buffer) {
+            return buffer.getInt();
+        }
+    };
+
+    /**
+     * 定长8字节
+     */
+    KeyCodec<Long> LONG = new KeyCodec<Long>() {
+        @Override
+        public int size(Long l) {
+            return Long.BYTES;
+        }
+
+        @Override
+        public void write(Long l, ByteBuffer buffer) {
+            buffer.putLong(l);
+        }
+
+        @Override
+        public Long read(ByteBuffer buffer) {
+            return buffer.getLong();
+        }
+    };
+
+    /**
+     * 4字节长度 + UTF-8字节
+     */
+    KeyCodec<String> STRING = new KeyCodec<String>() {
+        @Override
+        public int size(String s) {
+            return Integer.BYTES + utf8Length(s);
+        }
+
+        /**
+         * 不编码直接计算UTF-8字节数，与{@link String#getBytes(java.nio.charset.Charset)}一致：不成对的代理字符会被替换为1字节的'?'
+         */
+        private int utf8Length(String s) {
+            int length = 0;
+            for (int i = 0; i < s.length(); i++) {
+                char c = s.charAt(i);
+                if (c < 0x80) {
+                    length += 1;
+                } else if (c < 0x800) {
+                    length += 2;
+                } else if (Character.isHighSurrogate(c) && i + 1 < s.length() && Character.isLowSurrogate(s.charAt(i + 1))) {
+                    length += 4;
+                    i++;
+                } else if (Character.isSurrogate(c)) {
+                    length += 1;
+                } else {
+                    length += 3;
+                }
+            }
+            return length;
+        }
+
+        @Override
+        public void write(String s, ByteBuffer buffer) {
+            byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+            buffer.putInt(bytes.length);
+            buffer.put(bytes);
+        }
+
+        @Override
+        public String read(ByteBuffer buffer) {
+            int length = buffer.getInt();
+            byte[] bytes = new byte[length];
+            buffer.get(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    };
+}
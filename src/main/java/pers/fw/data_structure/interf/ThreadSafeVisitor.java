@@ -0,0 +1,10 @@
+package pers.fw.data_structure.interf;
+
+/**
+ * 线程安全的访问器：标记该访问器可以被多个线程同时调用，并行遍历只有遇到该类型的访问器才会并发访问元素
+ *
+ * @param <T>
+ */
+@FunctionalInterface
+public interface ThreadSafeVisitor<T> extends Visitor<T> {
+}
@@ -10,7 +10,7 @@ public interface Visitor<T> {
     /**
      *
      * @param t
-     * @return
+     * @return true表示停止遍历
      */
     boolean visit(T t);
 }
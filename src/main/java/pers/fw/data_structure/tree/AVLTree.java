@@ -0,0 +1,149 @@
+package pers.fw.data_structure.tree;
+
+import java.util.Collection;
+
+/**
+ * AVL树
+ * 任意节点左右子树的高度差（平衡因子）不超过1，树高严格为O(logn)
+ * 添加后最多旋转一次即可恢复平衡；删除后可能需要一直调整到根节点
+ *
+ * @param <E>
+ */
+public class AVLTree<E extends Comparable<E>> extends BalancedBinarySearchTree<E> {
+
+    private static class AVLNode<E> extends TreeNode<E> {
+        /**
+         * 叶子节点高度为1
+         */
+        int height = 1;
+
+        public AVLNode(E e, TreeNode<E> parent) {
+            super(e, parent);
+        }
+
+        public int balanceFactor() {
+            return heightOf(left) - heightOf(right);
+        }
+
+        public void updateHeight() {
+            height = 1 + Math.max(heightOf(left), heightOf(right));
+        }
+
+        /**
+         * 高度较高的子节点，若左右等高则返回与自身同方向的子节点
+         *
+         * @return
+         */
+        public TreeNode<E> tallerChild() {
+            int leftHeight = heightOf(left);
+            int rightHeight = heightOf(right);
+            if (leftHeight > rightHeight) return left;
+            if (leftHeight < rightHeight) return right;
+            return isLeftChild() ? left : right;
+        }
+
+        private static int heightOf(TreeNode<?> node) {
+            return node == null ? 0 : ((AVLNode<?>) node).height;
+        }
+    }
+
+    public AVLTree() {
+    }
+
+    public AVLTree(boolean orderStatistic) {
+        super(orderStatistic);
+    }
+
+    public AVLTree(Collection<E> collection) {
+        super(collection, false);
+    }
+
+    public AVLTree(Collection<E> collection, boolean orderStatistic) {
+        super(collection, orderStatistic);
+    }
+
+    @Override
+    protected TreeNode<E> createNode(E e, TreeNode<E> parent) {
+        return new AVLNode<>(e, parent);
+    }
+
+    /**
+     * 从新节点的父节点往上找，找到的第一个失衡节点恢复平衡后整棵树即平衡
+     *
+     * @param node 新添加的节点
+     */
+    @Override
+    protected void afterAdd(TreeNode<E> node) {
+        while ((node = node.parent) != null) {
+            if (isBalanced(node)) {
+                updateHeight(node);
+            } else {
+                rebalance(node);
+                break;
+            }
+        }
+    }
+
+    /**
+     * 删除可能导致父节点或祖先节点失衡，且恢复平衡后子树高度可能降低，所以需要一直检查到根节点
+     */
+    @Override
+    protected void afterRemove(TreeNode<E> node, TreeNode<E> replacement) {
+        while ((node = node.parent) != null) {
+            if (isBalanced(node)) {
+                updateHeight(node);
+            } else {
+                rebalance(node);
+            }
+        }
+    }
+
+    /**
+     * 批量构建的子树是完全平衡的，高度由节点数量决定：floor(log2(size)) + 1
+     */
+    @Override
+    protected void afterBulkBuild(TreeNode<E> node, int depth, int maxDepth) {
+        ((AVLNode<E>) node).height = 32 - Integer.numberOfLeadingZeros(node.size);
+    }
+
+    @Override
+    protected void afterRotate(TreeNode<E> grand, TreeNode<E> parent, TreeNode<E> child) {
+        super.afterRotate(grand, parent, child);
+        //先更新较低的grand，再更新parent
+        updateHeight(grand);
+        updateHeight(parent);
+    }
+
+    /**
+     * 恢复平衡：根据失衡节点grand、其较高子节点parent、parent的较高子节点node的相对位置（LL、LR、RR、RL）旋转
+     *
+     * @param grand 最低的失衡节点
+     */
+    private void rebalance(TreeNode<E> grand) {
+        TreeNode<E> parent = ((AVLNode<E>) grand).tallerChild();
+        TreeNode<E> node = ((AVLNode<E>) parent).tallerChild();
+        if (parent.isLeftChild()) {
+            if (node.isRightChild()) {
+                //LR
+                rotateLeft(parent);
+            }
+            //LL
+            rotateRight(grand);
+        } else {
+            if (node.isLeftChild()) {
+                //RL
+                rotateRight(parent);
+            }
+            //RR
+            rotateLeft(grand);
+        }
+    }
+
+    private boolean isBalanced(TreeNode<E> node) {
+        return Math.abs(((AVLNode<E>) node).balanceFactor()) <= 1;
+    }
+
+    private void updateHeight(TreeNode<E> node) {
+        ((AVLNode<E>) node).updateHeight();
+    }
+}
@@ -0,0 +1,461 @@
+package pers.fw.data_structure.tree;
+
+import pers.fw.data_structure.interf.Visitor;
+
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * B+树（内存版有序集合），接口与{@link BinarySearchTree}一致：add、contains、remove以及有序迭代
+ * 每个节点用一个连续数组保存最多fanout-1个元素，节点内二分查找；元素只存放在叶子节点，内部节点只保存分隔键，
+ * 叶子节点之间按顺序单向链接，范围查询定位到起始叶子后沿链表顺序扫描即可
+ * 与每个元素一个{@link BinaryTree.TreeNode}（对象头 + 元素、parent、left、right四个引用）相比，每个元素只占用叶子数组中的一个引用，
+ * 树高为O(log_fanout(n))，一次查找只访问少数几个连续的数组，对缓存更友好
+ * 分隔键规则：内部节点的keys[i]分隔children[i]与children[i + 1]，children[i]中的元素都小于keys[i]，children[i + 1]中的元素都大于等于keys[i]
+ *
+ * @param <E>
+ */
+public class BPlusTree<E extends Comparable<E>> implements Iterable<E> {
+    /**
+     * 默认扇出：内部节点最多64个子节点，叶子节点最多63个元素
+     */
+    private static final int DEFAULT_FANOUT = 64;
+
+    private final int fanout;
+    /**
+     * 节点（除根节点外）最少的元素数量，低于该值时向兄弟节点借或与兄弟节点合并
+     */
+    private final int minLeafKeys;
+    private final int minInnerKeys;
+
+    private Node root;
+    private int size;
+    private int height;
+    /**
+     * 结构修改次数，用于迭代器快速失败
+     */
+    private int modCount;
+    /**
+     * 插入时子节点分裂后向上传递的分隔键
+     */
+    private Object splitKey;
+
+    private static abstract class Node {
+        /**
+         * 多留一个位置，插入后元素数量达到fanout时再分裂
+         */
+        final Object[] keys;
+        int count;
+
+        Node(int fanout) {
+            keys = new Object[fanout];
+        }
+    }
+
+    private static final class Inner extends Node {
+        final Node[] children;
+
+        Inner(int fanout) {
+            super(fanout);
+            children = new Node[fanout + 1];
+        }
+    }
+
+    private static final class Leaf extends Node {
+        Leaf next;
+
+        Leaf(int fanout) {
+            super(fanout);
+        }
+    }
+
+    public BPlusTree() {
+        this(DEFAULT_FANOUT);
+    }
+
+    /**
+     * @param fanout 内部节点最多的子节点数量，叶子节点最多容纳fanout-1个元素
+     */
+    public BPlusTree(int fanout) {
+        if (fanout < 4) throw new RuntimeException("fanout must be ge 4");
+        this.fanout = fanout;
+        //分裂后左右两半的最小元素数量
+        minLeafKeys = fanout / 2;
+        minInnerKeys = fanout - fanout / 2 - 1;
+    }
+
+    private void checkElementNull(E e) {
+        if (e == null) throw new NullPointerException("element must not be null");
+    }
+
+    /**
+     * 节点内二分查找
+     *
+     * @return 找到时返回下标，否则返回-(插入位置)-1
+     */
+    private static int search(Node node, Object e) {
+        return Arrays.binarySearch(node.keys, 0, node.count, e);
+    }
+
+    /**
+     * 元素所在子树的下标：等于分隔键时进入右子树
+     */
+    private static int childIndex(Inner node, Object e) {
+        int index = search(node, e);
+        return index >= 0 ? index + 1 : -index - 1;
+    }
+
+    private Leaf findLeaf(E e) {
+        Node node = root;
+        while (node instanceof Inner) {
+            Inner inner = (Inner) node;
+            node = inner.children[childIndex(inner, e)];
+        }
+        return (Leaf) node;
+    }
+
+    public boolean contains(E e) {
+        checkElementNull(e);
+        if (root == null) return false;
+        return search(findLeaf(e), e) >= 0;
+    }
+
+    /**
+     * 添加元素，已存在则覆盖
+     *
+     * @param e
+     */
+    public void add(E e) {
+        checkElementNull(e);
+        if (root == null) {
+            root = new Leaf(fanout);
+            height = 1;
+        }
+        Node right = insert(root, e);
+        if (right != null) {
+            Inner newRoot = new Inner(fanout);
+            newRoot.keys[0] = splitKey;
+            newRoot.children[0] = root;
+            newRoot.children[1] = right;
+            newRoot.count = 1;
+            splitKey = null;
+            root = newRoot;
+            ++height;
+        }
+    }
+
+    /**
+     * 插入到以node为根的子树
+     *
+     * @return node分裂出的右半部分，未分裂则返回null；分隔键通过{@link BPlusTree#splitKey}返回
+     */
+    private Node insert(Node node, E e) {
+        if (node instanceof Leaf) {
+            Leaf leaf = (Leaf) node;
+            int index = search(leaf, e);
+            if (index >= 0) {
+                leaf.keys[index] = e;
+                return null;
+            }
+            index = -index - 1;
+            System.arraycopy(leaf.keys, index, leaf.keys, index + 1, leaf.count - index);
+            leaf.keys[index] = e;
+            ++leaf.count;
+            ++size;
+            ++modCount;
+            return leaf.count == fanout ? splitLeaf(leaf) : null;
+        }
+        Inner inner = (Inner) node;
+        int index = childIndex(inner, e);
+        Node right = insert(inner.children[index], e);
+        if (right == null) return null;
+        System.arraycopy(inner.keys, index, inner.keys, index + 1, inner.count - index);
+        System.arraycopy(inner.children, index + 1, inner.children, index + 2, inner.count - index);
+        inner.keys[index] = splitKey;
+        inner.children[index + 1] = right;
+        ++inner.count;
+        return inner.count == fanout ? splitInner(inner) : null;
+    }
+
+    /**
+     * 叶子分裂：后一半元素移到新叶子，新叶子的第一个元素作为分隔键
+     */
+    private Leaf splitLeaf(Leaf leaf) {
+        int mid = leaf.count / 2;
+        Leaf right = new Leaf(fanout);
+        right.count = leaf.count - mid;
+        System.arraycopy(leaf.keys, mid, right.keys, 0, right.count);
+        Arrays.fill(leaf.keys, mid, leaf.count, null);
+        leaf.count = mid;
+        right.next = leaf.next;
+        leaf.next = right;
+        splitKey = right.keys[0];
+        return right;
+    }
+
+    /**
+     * 内部节点分裂：中间的分隔键上移，不保留在左右任何一边
+     */
+    private Inner splitInner(Inner inner) {
+        int mid = inner.count / 2;
+        Inner right = new Inner(fanout);
+        right.count = inner.count - mid - 1;
+        System.arraycopy(inner.keys, mid + 1, right.keys, 0, right.count);
+        System.arraycopy(inner.children, mid + 1, right.children, 0, right.count + 1);
+        splitKey = inner.keys[mid];
+        Arrays.fill(inner.keys, mid, inner.count, null);
+        Arrays.fill(inner.children, mid + 1, inner.count + 1, null);
+        inner.count = mid;
+        return right;
+    }
+
+    /**
+     * 删除元素
+     * 叶子节点元素不足时，优先向左右兄弟借一个元素，兄弟也不富余时与兄弟合并；合并会删除父节点的一个分隔键，可能逐层向上传递；
+     * 根节点只剩一个子节点时树高减一
+     * 分隔键不要求一定是某个现存的元素，所以删除叶子的第一个元素后不需要更新祖先中的分隔键
+     *
+     * @param e
+     */
+    public void remove(E e) {
+        if (e == null || root == null) return;
+        if (!remove(root, e)) return;
+        if (root.count == 0) {
+            if (root instanceof Inner) {
+                root = ((Inner) root).children[0];
+            } else {
+                root = null;
+            }
+            --height;
+        }
+    }
+
+    /**
+     * @return 是否删除了元素
+     */
+    private boolean remove(Node node, E e) {
+        if (node instanceof Leaf) {
+            int index = search(node, e);
+            if (index < 0) return false;
+            removeAt(node, index);
+            --size;
+            ++modCount;
+            return true;
+        }
+        Inner inner = (Inner) node;
+        int index = childIndex(inner, e);
+        Node child = inner.children[index];
+        if (!remove(child, e)) return false;
+        if (child.count < (child instanceof Leaf ? minLeafKeys : minInnerKeys)) {
+            rebalance(inner, index);
+        }
+        return true;
+    }
+
+    private static void removeAt(Node node, int index) {
+        System.arraycopy(node.keys, index + 1, node.keys, index, node.count - index - 1);
+        node.keys[--node.count] = null;
+    }
+
+    /**
+     * 父节点parent的第index个子节点元素不足
+     */
+    private void rebalance(Inner parent, int index) {
+        Node child = parent.children[index];
+        Node left = index > 0 ? parent.children[index - 1] : null;
+        Node right = index < parent.count ? parent.children[index + 1] : null;
+        int min = child instanceof Leaf ? minLeafKeys : minInnerKeys;
+        if (left != null && left.count > min) {
+            borrowFromLeft(parent, index, left, child);
+        } else if (right != null && right.count > min) {
+            borrowFromRight(parent, index, child, right);
+        } else if (left != null) {
+            merge(parent, index - 1, left, child);
+        } else {
+            merge(parent, index, child, right);
+        }
+    }
+
+    private void borrowFromLeft(Inner parent, int index, Node left, Node child) {
+        System.arraycopy(child.keys, 0, child.keys, 1, child.count);
+        if (child instanceof Leaf) {
+            child.keys[0] = left.keys[left.count - 1];
+            parent.keys[index - 1] = child.keys[0];
+        } else {
+            Inner c = (Inner) child, l = (Inner) left;
+            System.arraycopy(c.children, 0, c.children, 1, c.count + 1);
+            c.keys[0] = parent.keys[index - 1];
+            c.children[0] = l.children[l.count];
+            l.children[l.count] = null;
+            parent.keys[index - 1] = l.keys[l.count - 1];
+        }
+        ++child.count;
+        left.keys[--left.count] = null;
+    }
+
+    private void borrowFromRight(Inner parent, int index, Node child, Node right) {
+        if (child instanceof Leaf) {
+            child.keys[child.count] = right.keys[0];
+            removeAt(right, 0);
+            parent.keys[index] = right.keys[0];
+        } else {
+            Inner c = (Inner) child, r = (Inner) right;
+            c.keys[c.count] = parent.keys[index];
+            c.children[c.count + 1] = r.children[0];
+            parent.keys[index] = r.keys[0];
+            System.arraycopy(r.children, 1, r.children, 0, r.count);
+            r.children[r.count] = null;
+            removeAt(r, 0);
+        }
+        ++child.count;
+    }
+
+    /**
+     * 把right合并到left，并删除父节点中二者之间的分隔键parent.keys[index]
+     */
+    private void merge(Inner parent, int index, Node left, Node right) {
+        if (left instanceof Leaf) {
+            System.arraycopy(right.keys, 0, left.keys, left.count, right.count);
+            left.count += right.count;
+            ((Leaf) left).next = ((Leaf) right).next;
+        } else {
+            Inner l = (Inner) left, r = (Inner) right;
+            l.keys[l.count] = parent.keys[index];
+            System.arraycopy(r.keys, 0, l.keys, l.count + 1, r.count);
+            System.arraycopy(r.children, 0, l.children, l.count + 1, r.count + 1);
+            l.count += r.count + 1;
+        }
+        System.arraycopy(parent.children, index + 2, parent.children, index + 1, parent.count - index - 1);
+        parent.children[parent.count] = null;
+        removeAt(parent, index);
+    }
+
+    /**
+     * 范围遍历：按升序访问[from, to)内的元素
+     * 定位起始叶子为O(log n)，之后沿叶子链表顺序扫描
+     *
+     * @param from    下界（包含）
+     * @param to      上界（不包含）
+     * @param visitor
+     * @return 访问器返回true而提前停止时返回true
+     */
+    public boolean rangeTraversal(E from, E to, Visitor<E> visitor) {
+        checkElementNull(from);
+        checkElementNull(to);
+        if (root == null) return false;
+        Leaf leaf = findLeaf(from);
+        int index = search(leaf, from);
+        if (index < 0) index = -index - 1;
+        for (; leaf != null; leaf = leaf.next, index = 0) {
+            for (; index < leaf.count; index++) {
+                E e = (E) leaf.keys[index];
+                if (e.compareTo(to) >= 0) return false;
+                if (visitor.visit(e)) return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 升序遍历全部元素
+     *
+     * @param visitor
+     * @return 访问器返回true而提前停止时返回true
+     */
+    public boolean inOrderTraversal(Visitor<E> visitor) {
+        for (Leaf leaf = firstLeaf(); leaf != null; leaf = leaf.next) {
+            for (int i = 0; i < leaf.count; i++) {
+                if (visitor.visit((E) leaf.keys[i])) return true;
+            }
+        }
+        return false;
+    }
+
+    private Leaf firstLeaf() {
+        Node node = root;
+        if (node == null) return null;
+        while (node instanceof Inner) {
+            node = ((Inner) node).children[0];
+        }
+        return (Leaf) node;
+    }
+
+    public void clear() {
+        root = null;
+        size = 0;
+        height = 0;
+        ++modCount;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * 树高：根节点到叶子节点的层数，空树为0
+     *
+     * @return
+     */
+    public int height() {
+        return height;
+    }
+
+    public int fanout() {
+        return fanout;
+    }
+
+    /**
+     * 沿叶子链表升序迭代
+     *
+     * @return
+     */
+    @Override
+    public Iterator<E> iterator() {
+        return new Iterator<E>() {
+            private Leaf leaf = firstLeaf();
+            private int index;
+            private final int expectedModCount = modCount;
+
+            @Override
+            public boolean hasNext() {
+                return leaf != null && index < leaf.count;
+            }
+
+            @Override
+            public E next() {
+                if (modCount != expectedModCount) throw new ConcurrentModificationException();
+                if (!hasNext()) throw new NoSuchElementException();
+                E e = (E) leaf.keys[index++];
+                if (index == leaf.count) {
+                    leaf = leaf.next;
+                    index = 0;
+                }
+                return e;
+            }
+        };
+    }
+
+    @Override
+    public Spliterator<E> spliterator() {
+        return Spliterators.spliterator(iterator(), size,
+                Spliterator.ORDERED | Spliterator.SORTED | Spliterator.DISTINCT | Spliterator.NONNULL);
+    }
+
+    public Stream<E> stream() {
+        return StreamSupport.stream(spliterator(), false);
+    }
+
+    public Stream<E> parallelStream() {
+        return StreamSupport.stream(spliterator(), true);
+    }
+}
@@ -0,0 +1,76 @@
+package pers.fw.data_structure.tree;
+
+import java.util.Collection;
+
+/**
+ * 平衡二叉搜索树（BBST）抽象类
+ * 提供左旋、右旋等公共操作，具体的平衡策略由子类（AVL树、红黑树）在添加/删除节点后调整
+ *
+ * @param <E>
+ */
+public abstract class BalancedBinarySearchTree<E extends Comparable<E>> extends BinarySearchTree<E> {
+
+    public BalancedBinarySearchTree() {
+    }
+
+    public BalancedBinarySearchTree(boolean orderStatistic) {
+        super(orderStatistic);
+    }
+
+    public BalancedBinarySearchTree(Collection<E> collection, boolean orderStatistic) {
+        super(collection, orderStatistic);
+    }
+
+    /**
+     * 左旋：grand的右子节点parent成为新的子树根节点
+     *
+     * @param grand
+     */
+    protected void rotateLeft(TreeNode<E> grand) {
+        TreeNode<E> parent = grand.right;
+        TreeNode<E> child = parent.left;
+        grand.right = child;
+        parent.left = grand;
+        afterRotate(grand, parent, child);
+    }
+
+    /**
+     * 右旋：grand的左子节点parent成为新的子树根节点
+     *
+     * @param grand
+     */
+    protected void rotateRight(TreeNode<E> grand) {
+        TreeNode<E> parent = grand.left;
+        TreeNode<E> child = parent.right;
+        grand.left = child;
+        parent.right = grand;
+        afterRotate(grand, parent, child);
+    }
+
+    /**
+     * 旋转后维护parent引用以及顺序统计模式下的子树大小，子类可重写以更新节点的附加信息（如高度）
+     *
+     * @param grand  旋转前的子树根节点
+     * @param parent 旋转后的子树根节点
+     * @param child  在grand与parent之间移动的子树
+     */
+    protected void afterRotate(TreeNode<E> grand, TreeNode<E> parent, TreeNode<E> child) {
+        parent.parent = grand.parent;
+        if (grand.isLeftChild()) {
+            grand.parent.left = parent;
+        } else if (grand.isRightChild()) {
+            grand.parent.right = parent;
+        } else {
+            root = parent;
+        }
+        if (child != null) {
+            child.parent = grand;
+        }
+        grand.parent = parent;
+        if (orderStatistic) {
+            //grand已成为parent的子节点，先更新grand
+            grand.updateSize();
+            parent.updateSize();
+        }
+    }
+}
@@ -1,23 +1,113 @@
 package pers.fw.data_structure.tree;
 
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
 /**
  * 二叉搜索树（BST）
  * 这里暂时忽略重复元素
+ * 顺序统计模式：每个节点额外维护子树的节点数量，添加、删除时沿父节点更新到根节点（多O(h)），旋转时重新计算；
+ * 由此支持O(h)的{@link BinarySearchTree#select(int)}、{@link BinarySearchTree#rank(Comparable)}和{@link BinarySearchTree#median()}
+ * 批量构建：{@link BinarySearchTree#addAll(Collection)}、集合构造器和{@link BinarySearchTree#rebalance()}直接由有序数组构建完全平衡的树，
+ * 输入已有序时为O(n)，否则先排序；元素较多时按子树并行构建
  *
  * @param <E>
  */
 public class BinarySearchTree<E extends Comparable<E>> extends BinaryTree<E> {
+    /**
+     * 批量构建时元素数量达到该值才并行排序、并行构建
+     */
+    private static final int PARALLEL_THRESHOLD = 1 << 16;
+    /**
+     * 并行构建时元素数量小于该值的子树在当前线程内构建
+     */
+    private static final int SEQUENTIAL_CUTOFF = 1 << 13;
+
     private int size;
+    /**
+     * 是否维护每个节点的子树大小
+     */
+    protected final boolean orderStatistic;
+
+    public BinarySearchTree() {
+        this(false);
+    }
+
+    /**
+     * @param orderStatistic 是否开启顺序统计模式
+     */
+    public BinarySearchTree(boolean orderStatistic) {
+        this.orderStatistic = orderStatistic;
+    }
+
+    public BinarySearchTree(Collection<E> collection) {
+        this(collection, false);
+    }
+
+    /**
+     * 批量构建，见{@link BinarySearchTree#addAll(Collection)}
+     *
+     * @param collection
+     * @param orderStatistic 是否开启顺序统计模式
+     */
+    public BinarySearchTree(Collection<E> collection, boolean orderStatistic) {
+        this(orderStatistic);
+        addAll(collection);
+    }
+
+    /**
+     * 中序遍历即为升序，元素不重复且不为null
+     *
+     * @return
+     */
+    @Override
+    protected int spliteratorCharacteristics() {
+        return super.spliteratorCharacteristics() | Spliterator.SORTED | Spliterator.DISTINCT | Spliterator.NONNULL;
+    }
 
     private void checkElementNull(E e) {
         if (e == null) throw new NullPointerException("element must not be null");
     }
 
+    /**
+     * 创建节点，子类（如平衡二叉搜索树）可重写以使用自定义节点
+     *
+     * @param e
+     * @param parent
+     * @return
+     */
+    protected TreeNode<E> createNode(E e, TreeNode<E> parent) {
+        return new TreeNode<>(e, parent);
+    }
+
+    /**
+     * 添加节点后的调整，供平衡二叉搜索树重写
+     *
+     * @param node 新添加的节点
+     */
+    protected void afterAdd(TreeNode<E> node) {
+    }
+
+    /**
+     * 删除节点后的调整，供平衡二叉搜索树重写
+     *
+     * @param node        被删除的节点（度为0或1，其parent仍指向原父节点）
+     * @param replacement 取代node的子节点，可能为null
+     */
+    protected void afterRemove(TreeNode<E> node, TreeNode<E> replacement) {
+    }
+
     public void add(E e) {
         checkElementNull(e);
         if (root == null) {
-            root = new TreeNode<>(e);
+            root = createNode(e, null);
             ++size;
+            ++modCount;
+            afterAdd(root);
             return;
         }
         TreeNode<E> node = root;
@@ -35,12 +125,20 @@ public class BinarySearchTree<E extends Comparable<E>> extends BinaryTree<E> {
                 return;
             }
             if (node == null) {
+                TreeNode<E> newNode = createNode(e, parent);
                 if (compare > 0) {
-                    parent.right = new TreeNode<>(e, parent);
-                } else if (compare < 0) {
-                    parent.left = new TreeNode<>(e, parent);
+                    parent.right = newNode;
+                } else {
+                    parent.left = newNode;
                 }
                 ++size;
+                ++modCount;
+                if (orderStatistic) {
+                    for (TreeNode<E> p = parent; p != null; p = p.parent) {
+                        p.size++;
+                    }
+                }
+                afterAdd(newNode);
                 return;
             }
         }
@@ -66,6 +164,194 @@ public class BinarySearchTree<E extends Comparable<E>> extends BinaryTree<E> {
         return findNode(e) != null;
     }
 
+    //-----------------导航与范围查询-----------------//
+
+    /**
+     * 最小的节点
+     *
+     * @return 空树返回null
+     */
+    protected TreeNode<E> firstNode() {
+        TreeNode<E> node = root;
+        if (node == null) return null;
+        while (node.left != null) {
+            node = node.left;
+        }
+        return node;
+    }
+
+    /**
+     * 最大的节点
+     *
+     * @return 空树返回null
+     */
+    protected TreeNode<E> lastNode() {
+        TreeNode<E> node = root;
+        if (node == null) return null;
+        while (node.right != null) {
+            node = node.right;
+        }
+        return node;
+    }
+
+    /**
+     * 大于等于（inclusive为true）或大于e的最小节点，只沿一条路径向下查找，O(h)
+     *
+     * @param e
+     * @param inclusive
+     * @return 不存在则返回null
+     */
+    protected TreeNode<E> ceilingNode(E e, boolean inclusive) {
+        TreeNode<E> node = root;
+        TreeNode<E> candidate = null;
+        while (node != null) {
+            int compare = e.compareTo(node.e);
+            if (compare == 0 && inclusive) return node;
+            if (compare < 0) {
+                candidate = node;
+                node = node.left;
+            } else {
+                node = node.right;
+            }
+        }
+        return candidate;
+    }
+
+    /**
+     * 小于等于（inclusive为true）或小于e的最大节点，只沿一条路径向下查找，O(h)
+     *
+     * @param e
+     * @param inclusive
+     * @return 不存在则返回null
+     */
+    protected TreeNode<E> floorNode(E e, boolean inclusive) {
+        TreeNode<E> node = root;
+        TreeNode<E> candidate = null;
+        while (node != null) {
+            int compare = e.compareTo(node.e);
+            if (compare == 0 && inclusive) return node;
+            if (compare > 0) {
+                candidate = node;
+                node = node.right;
+            } else {
+                node = node.left;
+            }
+        }
+        return candidate;
+    }
+
+    private static <E> E elementOf(TreeNode<E> node) {
+        return node == null ? null : node.e;
+    }
+
+    /**
+     * @return 最小元素，空树返回null
+     */
+    public E first() {
+        return elementOf(firstNode());
+    }
+
+    /**
+     * @return 最大元素，空树返回null
+     */
+    public E last() {
+        return elementOf(lastNode());
+    }
+
+    /**
+     * @param e
+     * @return 小于等于e的最大元素，不存在则返回null
+     */
+    public E floor(E e) {
+        checkElementNull(e);
+        return elementOf(floorNode(e, true));
+    }
+
+    /**
+     * @param e
+     * @return 大于等于e的最小元素，不存在则返回null
+     */
+    public E ceiling(E e) {
+        checkElementNull(e);
+        return elementOf(ceilingNode(e, true));
+    }
+
+    /**
+     * @param e
+     * @return 小于e的最大元素，不存在则返回null
+     */
+    public E lower(E e) {
+        checkElementNull(e);
+        return elementOf(floorNode(e, false));
+    }
+
+    /**
+     * @param e
+     * @return 大于e的最小元素，不存在则返回null
+     */
+    public E higher(E e) {
+        checkElementNull(e);
+        return elementOf(ceilingNode(e, false));
+    }
+
+    /**
+     * 范围视图：[fromElement, toElement)
+     *
+     * @param fromElement
+     * @param toElement
+     * @return
+     */
+    public RangeView<E> subSet(E fromElement, E toElement) {
+        return subSet(fromElement, true, toElement, false);
+    }
+
+    /**
+     * 范围视图，不复制元素，迭代时先用O(h)找到范围内的第一个节点，之后沿中序后继前进，每次查询O(h + k)
+     * 视图随树的修改而变化，但迭代期间修改树会快速失败
+     *
+     * @param fromElement
+     * @param fromInclusive
+     * @param toElement
+     * @param toInclusive
+     * @return
+     */
+    public RangeView<E> subSet(E fromElement, boolean fromInclusive, E toElement, boolean toInclusive) {
+        checkElementNull(fromElement);
+        checkElementNull(toElement);
+        if (fromElement.compareTo(toElement) > 0) throw new RuntimeException("fromElement must be le toElement");
+        return new RangeView<>(this, fromElement, fromInclusive, toElement, toInclusive);
+    }
+
+    /**
+     * 范围视图：小于toElement的元素
+     *
+     * @param toElement
+     * @return
+     */
+    public RangeView<E> headSet(E toElement) {
+        return headSet(toElement, false);
+    }
+
+    public RangeView<E> headSet(E toElement, boolean inclusive) {
+        checkElementNull(toElement);
+        return new RangeView<>(this, null, false, toElement, inclusive);
+    }
+
+    /**
+     * 范围视图：大于等于fromElement的元素
+     *
+     * @param fromElement
+     * @return
+     */
+    public RangeView<E> tailSet(E fromElement) {
+        return tailSet(fromElement, true);
+    }
+
+    public RangeView<E> tailSet(E fromElement, boolean inclusive) {
+        checkElementNull(fromElement);
+        return new RangeView<>(this, fromElement, inclusive, null, false);
+    }
+
     /**
      * 核心思路是先找到该节点，然后根据节点的度，分情况处理；设要删除的节点为node
      * 度=2，找到node的左子树最大或右子树最小的节点s(其实就是中序遍历前/后节点，若node的度=2，则前/后节点的度只能为0或1)，用s的值替代node的值，然后删除s
@@ -77,17 +363,18 @@ public class BinarySearchTree<E extends Comparable<E>> extends BinaryTree<E> {
         remove(findNode(e));
     }
 
-    private void remove(TreeNode node) {
+    private void remove(TreeNode<E> node) {
         if (node == null) return;
         --size;
+        ++modCount;
         //度=2时，相当于取node中序遍历的前/后节点（度=0或1）的值赋予node，然后删除前/后节点，这样问题就转化为删除度=0或1的节点了
         if (node.hasTwoChildren()) {
             //这里取的是后节点
-            TreeNode nextNode = inOrderNextNode(node);
+            TreeNode<E> nextNode = inOrderNextNode(node);
             node.e = nextNode.e;
             node = nextNode;
         }
-        TreeNode childNode = node.left != null ? node.left : node.right;
+        TreeNode<E> childNode = node.left != null ? node.left : node.right;
         if (childNode != null) {
             //度为1
             childNode.parent = node.parent;
@@ -109,5 +396,280 @@ public class BinarySearchTree<E extends Comparable<E>> extends BinaryTree<E> {
                 node.parent.right = null;
             }
         }
+        if (orderStatistic) {
+            for (TreeNode<E> p = node.parent; p != null; p = p.parent) {
+                p.size--;
+            }
+        }
+        afterRemove(node, childNode);
+    }
+
+    /**
+     * 元素数量，O(1)
+     *
+     * @return
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    //-----------------顺序统计-----------------//
+
+    private void checkOrderStatistic() {
+        if (!orderStatistic) throw new RuntimeException("orderStatistic must be enabled");
+    }
+
+    /**
+     * 第k小的元素（k从0开始），O(h)
+     * 根据左子树的大小决定向左走、返回当前节点还是向右走
+     *
+     * @param k
+     * @return
+     */
+    public E select(int k) {
+        checkOrderStatistic();
+        if (k < 0 || k >= size) throw new RuntimeException("k must be in [0, size)");
+        TreeNode<E> node = root;
+        while (true) {
+            int leftSize = TreeNode.sizeOf(node.left);
+            if (k < leftSize) {
+                node = node.left;
+            } else if (k == leftSize) {
+                return node.e;
+            } else {
+                k -= leftSize + 1;
+                node = node.right;
+            }
+        }
+    }
+
+    /**
+     * 小于e的元素数量，O(h)
+     * e存在时即为e按升序排列的下标（与{@link BinarySearchTree#select(int)}互逆），不存在时为e应插入的位置
+     *
+     * @param e
+     * @return
+     */
+    public int rank(E e) {
+        checkOrderStatistic();
+        checkElementNull(e);
+        int rank = 0;
+        TreeNode<E> node = root;
+        while (node != null) {
+            int compare = e.compareTo(node.e);
+            if (compare < 0) {
+                node = node.left;
+            } else if (compare > 0) {
+                rank += TreeNode.sizeOf(node.left) + 1;
+                node = node.right;
+            } else {
+                return rank + TreeNode.sizeOf(node.left);
+            }
+        }
+        return rank;
+    }
+
+    /**
+     * 中位数，元素数量为偶数时取较小的一个，O(h)
+     *
+     * @return 空树返回null
+     */
+    public E median() {
+        checkOrderStatistic();
+        if (size == 0) return null;
+        return select((size - 1) / 2);
+    }
+
+    //-----------------批量构建-----------------//
+
+    /**
+     * 批量构建的节点按完全平衡的方式链接好（包括parent引用和子树大小）后，对每个节点调用一次，供平衡二叉搜索树设置节点的附加信息；
+     * 调用时node的子树已经构建完毕；并行构建时会在多个线程中并发调用，但每个节点只会被一个线程访问
+     * 按中间位置划分的树中，深度为0..maxDepth-1的层都是满的，只有最深的一层可能不满
+     *
+     * @param node
+     * @param depth    node的深度，根节点为0
+     * @param maxDepth 整棵树最深的节点的深度
+     */
+    protected void afterBulkBuild(TreeNode<E> node, int depth, int maxDepth) {
+    }
+
+    /**
+     * 批量添加
+     * 空树时：复制到数组，若未按升序排列则排序（稳定排序），相等的元素只保留最后出现的一个（与{@link BinarySearchTree#add(Comparable)}的覆盖语义一致），
+     * 然后取中间元素为根递归构建完全平衡的树，构建部分为O(n)；
+     * 非空树时：若新元素相对较少（m·log(n + m) < n），逐个add更快；否则与树中已有元素归并后整体重建，O(n + m·log m)
+     *
+     * @param collection
+     */
+    public void addAll(Collection<E> collection) {
+        if (collection == null) throw new NullPointerException("collection must not be null");
+        int m = collection.size();
+        if (m == 0) return;
+        if (size > 0 && (long) m * (32 - Integer.numberOfLeadingZeros(size + m)) < size) {
+            for (E e : collection) {
+                add(e);
+            }
+            return;
+        }
+        E[] elements = (E[]) new Comparable[m];
+        Iterator<E> iterator = collection.iterator();
+        for (int i = 0; i < m; i++) {
+            E e = iterator.next();
+            checkElementNull(e);
+            elements[i] = e;
+        }
+        if (!isSorted(elements)) {
+            if (m >= PARALLEL_THRESHOLD) {
+                Arrays.parallelSort(elements);
+            } else {
+                Arrays.sort(elements);
+            }
+        }
+        int length = dedupe(elements);
+        if (size > 0) {
+            elements = merge(elements, length);
+            length = elements.length;
+        }
+        build(elements, length, false);
+    }
+
+    private boolean isSorted(E[] elements) {
+        for (int i = 1; i < elements.length; i++) {
+            if (elements[i - 1].compareTo(elements[i]) > 0) return false;
+        }
+        return true;
+    }
+
+    /**
+     * 有序数组原地去重，相等的元素保留最后一个
+     *
+     * @return 去重后的元素数量
+     */
+    private int dedupe(E[] elements) {
+        int length = 0;
+        for (E e : elements) {
+            if (length > 0 && elements[length - 1].compareTo(e) == 0) {
+                elements[length - 1] = e;
+            } else {
+                elements[length++] = e;
+            }
+        }
+        return length;
+    }
+
+    /**
+     * 树中已有元素与有序、无重复的新元素归并，相等时取新元素
+     */
+    private E[] merge(E[] elements, int length) {
+        E[] merged = (E[]) new Comparable[size + length];
+        int j = 0, k = 0;
+        for (TreeNode<E> node = firstNode(); node != null; node = inOrderNextNode(node)) {
+            while (j < length && elements[j].compareTo(node.e) < 0) {
+                merged[k++] = elements[j++];
+            }
+            if (j < length && elements[j].compareTo(node.e) == 0) {
+                merged[k++] = elements[j++];
+            } else {
+                merged[k++] = node.e;
+            }
+        }
+        while (j < length) {
+            merged[k++] = elements[j++];
+        }
+        return k == merged.length ? merged : Arrays.copyOf(merged, k);
+    }
+
+    /**
+     * 由已按升序排列且无重复的元素直接构建，不做任何比较，供快照恢复使用
+     *
+     * @param elements
+     * @param length
+     */
+    void restoreSorted(E[] elements, int length) {
+        if (root != null) throw new RuntimeException("tree must be empty");
+        if (length > 0) build(elements, length, false);
+    }
+
+    /**
+     * 重建为完全平衡的树，复用原有节点，O(n)，适合退化（如按顺序插入）后的普通二叉搜索树
+     */
+    public void rebalance() {
+        if (size == 0) return;
+        TreeNode<E>[] nodes = new TreeNode[size];
+        int i = 0;
+        for (TreeNode<E> node = firstNode(); node != null; node = inOrderNextNode(node)) {
+            nodes[i++] = node;
+        }
+        build(nodes, size, true);
+    }
+
+    /**
+     * 由有序数组的前length个元素构建完全平衡的树，替换当前的树
+     *
+     * @param items 元素或已有的节点
+     * @param reuse items中是否为可复用的节点
+     */
+    private void build(Object[] items, int length, boolean reuse) {
+        int maxDepth = 31 - Integer.numberOfLeadingZeros(length);
+        BuildTask task = new BuildTask(items, reuse, 0, length - 1, 0, maxDepth);
+        root = length >= PARALLEL_THRESHOLD ? ForkJoinPool.commonPool().invoke(task) : task.compute();
+        root.parent = null;
+        size = length;
+        ++modCount;
+    }
+
+    /**
+     * 构建items[low..high]对应的子树：中间元素为根，左右两半分别构建左右子树
+     * 子树元素数量不小于{@link BinarySearchTree#SEQUENTIAL_CUTOFF}时fork左子树、自己构建右子树
+     */
+    private class BuildTask extends RecursiveTask<TreeNode<E>> {
+        private final Object[] items;
+        private final boolean reuse;
+        private final int low;
+        private final int high;
+        private final int depth;
+        private final int maxDepth;
+
+        BuildTask(Object[] items, boolean reuse, int low, int high, int depth, int maxDepth) {
+            this.items = items;
+            this.reuse = reuse;
+            this.low = low;
+            this.high = high;
+            this.depth = depth;
+            this.maxDepth = maxDepth;
+        }
+
+        @Override
+        protected TreeNode<E> compute() {
+            if (high - low + 1 < SEQUENTIAL_CUTOFF) {
+                return build(low, high, depth);
+            }
+            int mid = (low + high) >>> 1;
+            BuildTask leftTask = new BuildTask(items, reuse, low, mid - 1, depth + 1, maxDepth);
+            leftTask.fork();
+            TreeNode<E> right = new BuildTask(items, reuse, mid + 1, high, depth + 1, maxDepth).compute();
+            return link(mid, leftTask.join(), right, depth);
+        }
+
+        private TreeNode<E> build(int low, int high, int depth) {
+            if (low > high) return null;
+            int mid = (low + high) >>> 1;
+            TreeNode<E> left = build(low, mid - 1, depth + 1);
+            TreeNode<E> right = build(mid + 1, high, depth + 1);
+            return link(mid, left, right, depth);
+        }
+
+        private TreeNode<E> link(int index, TreeNode<E> left, TreeNode<E> right, int depth) {
+            TreeNode<E> node = reuse ? (TreeNode<E>) items[index] : createNode((E) items[index], null);
+            node.left = left;
+            node.right = right;
+            if (left != null) left.parent = node;
+            if (right != null) right.parent = node;
+            node.updateSize();
+            afterBulkBuild(node, depth, maxDepth);
+            return node;
+        }
     }
 }
@@ -4,21 +4,41 @@ import pers.fw.data_structure.Queue;
 import pers.fw.data_structure.Stack;
 import pers.fw.data_structure.interf.Visitor;
 
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
 /**
  * 二叉树
  * DFS（深度优先搜索）、BFS（广度优先搜索）
- * todo 有种时间复杂度为O(n)，空间复杂度为O(1)的遍历算法：Morris算法，有时间研究一下
+ * 前/中/后序遍历支持两种模式（见{@link TraversalMode}）：基于栈的遍历，以及时间复杂度O(n)、空间复杂度O(1)的Morris遍历
+ * 迭代器按中序遍历顺序惰性地沿父节点引用前进，不需要额外的栈，迭代器是fail-fast的
+ * 所有遍历在访问器返回true时立即停止，并返回true表示提前停止，查找类的遍历只需访问到匹配的位置
  *
  * @param <E>
  */
-public abstract class BinaryTree<E> {
+public abstract class BinaryTree<E> implements Iterable<E> {
     protected TreeNode<E> root;
+    /**
+     * 结构修改次数，用于迭代器快速失败，子类在添加、删除节点时递增
+     */
+    protected int modCount;
 
     protected static class TreeNode<E> {
         E e;
         TreeNode<E> parent;
         TreeNode<E> left;
         TreeNode<E> right;
+        /**
+         * 以该节点为根的子树的节点数量，只在顺序统计模式下维护（见{@link BinarySearchTree#BinarySearchTree(boolean)}）
+         * 对象头加4个引用后正好有4字节的对齐填充，所以这个字段不会增大TreeNode本身
+         */
+        int size = 1;
 
         public TreeNode(E e) {
             this.e = e;
@@ -33,6 +53,23 @@ public abstract class BinaryTree<E> {
             return left == null && right == null;
         }
 
+        /**
+         * 子树的节点数量，node为null时为0
+         *
+         * @param node
+         * @return
+         */
+        static int sizeOf(TreeNode<?> node) {
+            return node == null ? 0 : node.size;
+        }
+
+        /**
+         * 根据左右子节点重新计算子树的节点数量
+         */
+        void updateSize() {
+            size = 1 + sizeOf(left) + sizeOf(right);
+        }
+
         public boolean hasTwoChildren() {
             return left != null && right != null;
         }
@@ -47,29 +84,98 @@ public abstract class BinaryTree<E> {
             else if (left == null && right == null) return 0;
             else return 1;
         }
+
+        public boolean isLeftChild() {
+            return parent != null && parent.left == this;
+        }
+
+        public boolean isRightChild() {
+            return parent != null && parent.right == this;
+        }
+
+        /**
+         * 兄弟节点
+         *
+         * @return
+         */
+        public TreeNode<E> sibling() {
+            if (isLeftChild()) return parent.right;
+            if (isRightChild()) return parent.left;
+            return null;
+        }
+    }
+
+    /**
+     * 基于fork/join的并行遍历与聚合
+     *
+     * @return
+     */
+    public ParallelTraversal<E> parallel() {
+        return new ParallelTraversal<>(this);
+    }
+
+    /**
+     * 遍历模式
+     */
+    public enum TraversalMode {
+        /**
+         * 基于栈：遍历过程中不修改树，但每次入栈都要占用额外空间
+         */
+        STACK,
+        /**
+         * Morris遍历：利用叶子节点空闲的right引用临时指向中序遍历的后继节点（线索），遍历结束（包括提前停止、访问器抛出异常）前会全部还原，不分配任何额外空间；
+         * 遍历期间树的结构处于临时修改状态，所以访问器中不能修改或读取树的结构，也不能与其他线程并发读
+         */
+        MORRIS
+    }
+
+    public boolean preOrderTraversal(Visitor<E> visitor, TraversalMode mode) {
+        if (mode == TraversalMode.MORRIS) {
+            return preOrderTraversalByMorris(visitor);
+        }
+        return preOrderTraversal(visitor);
+    }
+
+    public boolean inOrderTraversal(Visitor<E> visitor, TraversalMode mode) {
+        if (mode == TraversalMode.MORRIS) {
+            return inOrderTraversalByMorris(visitor);
+        }
+        return inOrderTraversal(visitor);
+    }
+
+    public boolean postOrderTraversal(Visitor<E> visitor, TraversalMode mode) {
+        if (mode == TraversalMode.MORRIS) {
+            return postOrderTraversalByMorris(visitor);
+        }
+        return postOrderTraversal(visitor);
     }
 
     /**
      * 前序遍历：根->左->右
+     *
+     * @return 访问器返回true而提前停止时返回true
      */
-    public void preOrderTraversal(Visitor<E> visitor) {
-        if (root == null) return;
+    public boolean preOrderTraversal(Visitor<E> visitor) {
+        if (root == null) return false;
         Stack<TreeNode<E>> stack = new Stack<>();
         stack.push(root);
         while (!stack.isEmpty()) {
             TreeNode<E> node = stack.pop();
-            visitor.visit(node.e);
+            if (visitor.visit(node.e)) return true;
             if (node.right != null) stack.push(node.right);
             if (node.left != null) stack.push(node.left);
         }
+        return false;
     }
 
     /**
      * 中序遍历：左->根->右
      * 实现方式：左链入栈
+     *
+     * @return 访问器返回true而提前停止时返回true
      */
-    public void inOrderTraversal(Visitor<E> visitor) {
-        if (root == null) return;
+    public boolean inOrderTraversal(Visitor<E> visitor) {
+        if (root == null) return false;
         Stack<TreeNode<E>> stack = new Stack<>();
         TreeNode<E> node = root;
         while (node != null || !stack.isEmpty()) {
@@ -78,17 +184,20 @@ public abstract class BinaryTree<E> {
                 node = node.left;
             }
             node = stack.pop();
-            visitor.visit(node.e);
+            if (visitor.visit(node.e)) return true;
             node = node.right;
         }
+        return false;
     }
 
     /**
      * 后序遍历：左->右->根
      * 实现方式：左链入栈，并记录后序遍历上一个节点，若当前节点为叶子节点或当前节点的右子节点为上一个节点，则说明该节点的左右子树都访问了，弹出该节点；若不满足则说明右子树还未遍历
+     *
+     * @return 访问器返回true而提前停止时返回true
      */
-    public void postOrderTraversal(Visitor<E> visitor) {
-        if (root == null) return;
+    public boolean postOrderTraversal(Visitor<E> visitor) {
+        if (root == null) return false;
         Stack<TreeNode<E>> stack = new Stack<>();
         TreeNode<E> node = root;
         TreeNode<E> prev = null;
@@ -99,7 +208,7 @@ public abstract class BinaryTree<E> {
             }
             node = stack.pop();
             if (node.right == null || node.right == prev) {
-                visitor.visit(node.e);
+                if (visitor.visit(node.e)) return true;
                 prev = node;
                 node = null;
             } else {
@@ -107,22 +216,26 @@ public abstract class BinaryTree<E> {
                 node = node.right;
             }
         }
+        return false;
     }
 
     /**
      * 层序遍历
      * 实现方式：利用队列
+     *
+     * @return 访问器返回true而提前停止时返回true
      */
-    public void levelOrderTraversal(Visitor<E> visitor) {
-        if (root == null) return;
-        Queue<TreeNode> queue = new Queue<>();
+    public boolean levelOrderTraversal(Visitor<E> visitor) {
+        if (root == null) return false;
+        Queue<TreeNode<E>> queue = new Queue<>();
         queue.offer(root);
         while (!queue.isEmpty()) {
             TreeNode<E> node = queue.poll();
-            visitor.visit(node.e);
+            if (visitor.visit(node.e)) return true;
             if (node.left != null) queue.offer(node.left);
             if (node.right != null) queue.offer(node.right);
         }
+        return false;
     }
 
     /**
@@ -133,13 +246,13 @@ public abstract class BinaryTree<E> {
      */
     public int height() {
         if (root == null) return 0;
-        Queue<TreeNode> queue = new Queue<>();
+        Queue<TreeNode<E>> queue = new Queue<>();
         queue.offer(root);
         int height = 0;
         while (!queue.isEmpty()) {
             int levelSize = queue.size();
             for (int i = 0; i < levelSize; i++) {
-                TreeNode node = queue.poll();
+                TreeNode<E> node = queue.poll();
                 if (node.left != null) queue.offer(node.left);
                 if (node.right != null) queue.offer(node.right);
             }
@@ -149,7 +262,7 @@ public abstract class BinaryTree<E> {
     }
 
     /**
-     * 计算节点数量（todo 子类应该重写这个方法）
+     * 计算节点数量，子类若自行维护了节点数量应重写这个方法（如{@link BinarySearchTree#size()}）
      * 实现方式：使用任意遍历计数
      *
      * @return
@@ -176,10 +289,10 @@ public abstract class BinaryTree<E> {
      */
     public boolean isProper() {
         if (root == null) return true;
-        Queue<TreeNode> queue = new Queue<>();
+        Queue<TreeNode<E>> queue = new Queue<>();
         queue.offer(root);
         while (!queue.isEmpty()) {
-            TreeNode node = queue.poll();
+            TreeNode<E> node = queue.poll();
             int degree = node.degree();
             if (degree == 1) return false;
             if (node.left != null) queue.offer(node.left);
@@ -196,14 +309,14 @@ public abstract class BinaryTree<E> {
      */
     public boolean isFull() {
         if (root == null) return true;
-        Queue<TreeNode> queue = new Queue<>();
+        Queue<TreeNode<E>> queue = new Queue<>();
         queue.offer(root);
         int theoreticalValue = 1;
         while (!queue.isEmpty()) {
             int levelSize = queue.size();
             if (theoreticalValue != levelSize) return false;
             for (int i = 0; i < levelSize; i++) {
-                TreeNode node = queue.poll();
+                TreeNode<E> node = queue.poll();
                 if (node.left != null) queue.offer(node.left);
                 if (node.right != null) queue.offer(node.right);
             }
@@ -220,11 +333,11 @@ public abstract class BinaryTree<E> {
      */
     public boolean isComplete() {
         if (root == null) return true;
-        Queue<TreeNode> queue = new Queue<>();
+        Queue<TreeNode<E>> queue = new Queue<>();
         queue.offer(root);
         boolean leaf = false;
         while (!queue.isEmpty()) {
-            TreeNode node = queue.poll();
+            TreeNode<E> node = queue.poll();
             if (leaf && !node.isLeaf()) return false;
             if (node.left != null) {
                 queue.offer(node.left);
@@ -283,39 +396,384 @@ public abstract class BinaryTree<E> {
     }
 
 
+    /**
+     * 子树中最左的节点
+     *
+     * @param node
+     * @return
+     */
+    private TreeNode<E> leftmost(TreeNode<E> node) {
+        while (node.left != null) {
+            node = node.left;
+        }
+        return node;
+    }
+
+    /**
+     * 子树中最右的节点
+     *
+     * @param node
+     * @return
+     */
+    private TreeNode<E> rightmost(TreeNode<E> node) {
+        while (node.right != null) {
+            node = node.right;
+        }
+        return node;
+    }
+
+    //-----------------迭代器-----------------//
+
+    /**
+     * 中序迭代：每次调用next()通过{@link BinaryTree#inOrderNextNode(TreeNode)}前进一步，均摊O(1)
+     *
+     * @return
+     */
+    @Override
+    public Iterator<E> iterator() {
+        return new Iterator<E>() {
+            private TreeNode<E> next = root == null ? null : leftmost(root);
+            private final int expectedModCount = modCount;
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public E next() {
+                if (modCount != expectedModCount) throw new ConcurrentModificationException();
+                if (next == null) throw new NoSuchElementException();
+                E e = next.e;
+                next = inOrderNextNode(next);
+                return e;
+            }
+        };
+    }
+
+    @Override
+    public Spliterator<E> spliterator() {
+        return new TreeSpliterator(null, root, -1, modCount, true);
+    }
+
+    public Stream<E> stream() {
+        return StreamSupport.stream(spliterator(), false);
+    }
+
+    public Stream<E> parallelStream() {
+        return StreamSupport.stream(spliterator(), true);
+    }
+
+    /**
+     * 分割迭代器的特征值，有序的子类可以追加{@link Spliterator#SORTED}等特征
+     *
+     * @return
+     */
+    protected int spliteratorCharacteristics() {
+        return Spliterator.ORDERED;
+    }
+
+    /**
+     * 中序分割迭代器
+     * 未开始遍历时，剩余元素为：pending节点（可为null），接着是以subtree为根的整棵子树；
+     * 拆分时把(pending, subtree.left)作为前缀分出去，自己变为(subtree, subtree.right)，这样每次拆分只需O(1)且不复制元素；
+     * 开始遍历后在[next, last]区间内沿中序后继前进
+     */
+    private final class TreeSpliterator implements Spliterator<E> {
+        private TreeNode<E> pending;
+        private TreeNode<E> subtree;
+        private TreeNode<E> next;
+        private TreeNode<E> last;
+        /**
+         * 剩余元素数量估计，-1表示尚未计算
+         */
+        private long est;
+        private final int expectedModCount;
+        /**
+         * 只有未拆分过的分割迭代器的数量是准确的
+         */
+        private final boolean exact;
+
+        TreeSpliterator(TreeNode<E> pending, TreeNode<E> subtree, long est, int expectedModCount, boolean exact) {
+            this.pending = pending;
+            this.subtree = subtree;
+            this.est = est;
+            this.expectedModCount = expectedModCount;
+            this.exact = exact;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super E> action) {
+            if (action == null) throw new NullPointerException();
+            if (modCount != expectedModCount) throw new ConcurrentModificationException();
+            TreeNode<E> node;
+            if (pending != null) {
+                node = pending;
+                pending = null;
+            } else {
+                if (subtree != null) {
+                    next = leftmost(subtree);
+                    last = rightmost(subtree);
+                    subtree = null;
+                }
+                if (next == null) return false;
+                node = next;
+                next = node == last ? null : inOrderNextNode(node);
+            }
+            if (est > 0) --est;
+            action.accept(node.e);
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super E> action) {
+            if (action == null) throw new NullPointerException();
+            if (pending != null) {
+                action.accept(pending.e);
+                pending = null;
+            }
+            if (subtree != null) {
+                next = leftmost(subtree);
+                last = rightmost(subtree);
+                subtree = null;
+            }
+            TreeNode<E> node = next;
+            while (node != null) {
+                action.accept(node.e);
+                node = node == last ? null : inOrderNextNode(node);
+            }
+            next = null;
+            est = 0;
+            if (modCount != expectedModCount) throw new ConcurrentModificationException();
+        }
+
+        @Override
+        public Spliterator<E> trySplit() {
+            if (subtree == null || (pending == null && subtree.left == null)) return null;
+            long half = estimateSize() >>> 1;
+            TreeSpliterator prefix = new TreeSpliterator(pending, subtree.left, half, expectedModCount, false);
+            pending = subtree;
+            subtree = subtree.right;
+            est -= half;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            if (est < 0) est = size();
+            return est;
+        }
+
+        @Override
+        public int characteristics() {
+            int characteristics = spliteratorCharacteristics();
+            return exact ? characteristics | SIZED : characteristics;
+        }
+
+        @Override
+        public Comparator<? super E> getComparator() {
+            if (hasCharacteristics(SORTED)) return null;
+            throw new IllegalStateException();
+        }
+    }
+
+    //-----------------Morris实现-----------------//
+
+    /**
+     * 找到node中序遍历的前驱节点，即左子树最右的节点；若前驱节点已指向node（已建立线索）则停止
+     *
+     * @param node 左子节点不为null的节点
+     * @return
+     */
+    private TreeNode<E> morrisPredecessor(TreeNode<E> node) {
+        TreeNode<E> pre = node.left;
+        while (pre.right != null && pre.right != node) {
+            pre = pre.right;
+        }
+        return pre;
+    }
+
+    /**
+     * 前序遍历：Morris实现
+     * 第一次到达节点（建立线索时）就访问
+     */
+    private boolean preOrderTraversalByMorris(Visitor<E> visitor) {
+        TreeNode<E> node = root;
+        while (node != null) {
+            if (node.left == null) {
+                if (visitByMorris(node, visitor)) return true;
+                node = node.right;
+                continue;
+            }
+            TreeNode<E> pre = morrisPredecessor(node);
+            if (pre.right == null) {
+                if (visitByMorris(node, visitor)) return true;
+                pre.right = node;
+                node = node.left;
+            } else {
+                pre.right = null;
+                node = node.right;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 中序遍历：Morris实现
+     * 第二次到达节点（左子树遍历完，沿线索回到该节点并拆除线索时）才访问
+     */
+    private boolean inOrderTraversalByMorris(Visitor<E> visitor) {
+        TreeNode<E> node = root;
+        while (node != null) {
+            if (node.left == null) {
+                if (visitByMorris(node, visitor)) return true;
+                node = node.right;
+                continue;
+            }
+            TreeNode<E> pre = morrisPredecessor(node);
+            if (pre.right == null) {
+                pre.right = node;
+                node = node.left;
+            } else {
+                pre.right = null;
+                if (visitByMorris(node, visitor)) return true;
+                node = node.right;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 后序遍历：Morris实现
+     * 拆除node的线索时，逆序访问node左子节点开始的右链；最后逆序访问根节点开始的右链
+     */
+    private boolean postOrderTraversalByMorris(Visitor<E> visitor) {
+        TreeNode<E> node = root;
+        while (node != null) {
+            if (node.left == null) {
+                node = node.right;
+                continue;
+            }
+            TreeNode<E> pre = morrisPredecessor(node);
+            if (pre.right == null) {
+                pre.right = node;
+                node = node.left;
+            } else {
+                pre.right = null;
+                boolean stopped = true;
+                try {
+                    stopped = visitRightEdgeReversely(node.left, visitor);
+                } finally {
+                    //提前停止或访问器抛出异常
+                    if (stopped) removeThreads(node);
+                }
+                if (stopped) return true;
+                node = node.right;
+            }
+        }
+        return visitRightEdgeReversely(root, visitor);
+    }
+
+    /**
+     * Morris遍历中访问node：访问器返回true（提前停止）或抛出异常时拆除剩余的线索
+     *
+     * @param node
+     * @param visitor
+     * @return 访问器返回true而提前停止时返回true
+     */
+    private boolean visitByMorris(TreeNode<E> node, Visitor<E> visitor) {
+        boolean stopped = true;
+        try {
+            stopped = visitor.visit(node.e);
+        } finally {
+            if (stopped) removeThreads(node);
+        }
+        return stopped;
+    }
+
+    /**
+     * 逆序访问from开始的右链：先原地反转右链，访问后再反转回来；提前停止、访问器抛出异常时同样会反转回来
+     *
+     * @param from
+     * @param visitor
+     * @return 访问器返回true而提前停止时返回true
+     */
+    private boolean visitRightEdgeReversely(TreeNode<E> from, Visitor<E> visitor) {
+        TreeNode<E> tail = reverseRightEdge(from);
+        try {
+            for (TreeNode<E> node = tail; node != null; node = node.right) {
+                if (visitor.visit(node.e)) return true;
+            }
+            return false;
+        } finally {
+            reverseRightEdge(tail);
+        }
+    }
+
+    /**
+     * Morris遍历提前停止（或访问器抛出异常）时拆除剩余的线索
+     * 尚未拆除的线索都属于左子树包含node的祖先A，即A左子树最右节点的right指向A；node位于最内层的这种祖先的左子树的右链上，
+     * 而这个祖先又位于外一层祖先左子树的右链上，所以从node沿right一路前进就能依次经过所有线索，总共O(h + 右链长度)；
+     * 线索指向的是祖先，真实右子节点的parent是当前节点，据此区分二者
+     *
+     * @param node 停止时所在的节点，其自身的线索（若有）已经拆除或尚未建立
+     * @return 总是返回true，便于遍历方法直接返回
+     */
+    private boolean removeThreads(TreeNode<E> node) {
+        while (node != null) {
+            TreeNode<E> next = node.right;
+            if (next != null && next.parent != node) {
+                node.right = null;
+            }
+            node = next;
+        }
+        return true;
+    }
+
+    private TreeNode<E> reverseRightEdge(TreeNode<E> from) {
+        TreeNode<E> prev = null;
+        while (from != null) {
+            TreeNode<E> next = from.right;
+            from.right = prev;
+            prev = from;
+            from = next;
+        }
+        return prev;
+    }
+
     //-----------------递归实现-----------------//
 
     /**
      * 前序遍历：递归实现
      */
     @Deprecated
-    public void preOrderTraversalByRecursion(TreeNode<E> root, Visitor<E> visitor) {
-        if (root == null) return;
-        visitor.visit(root.e);
-        preOrderTraversalByRecursion(root.left, visitor);
-        preOrderTraversalByRecursion(root.right, visitor);
+    public boolean preOrderTraversalByRecursion(TreeNode<E> root, Visitor<E> visitor) {
+        if (root == null) return false;
+        return visitor.visit(root.e)
+                || preOrderTraversalByRecursion(root.left, visitor)
+                || preOrderTraversalByRecursion(root.right, visitor);
     }
 
     /**
      * 中序遍历：递归实现
      */
     @Deprecated
-    public void inOrderTraversalByRecursion(TreeNode<E> root, Visitor<E> visitor) {
-        if (root == null) return;
-        inOrderTraversalByRecursion(root.left, visitor);
-        visitor.visit(root.e);
-        inOrderTraversalByRecursion(root.right, visitor);
+    public boolean inOrderTraversalByRecursion(TreeNode<E> root, Visitor<E> visitor) {
+        if (root == null) return false;
+        return inOrderTraversalByRecursion(root.left, visitor)
+                || visitor.visit(root.e)
+                || inOrderTraversalByRecursion(root.right, visitor);
     }
 
     /**
      * 后序遍历：递归实现
      */
     @Deprecated
-    public void postOrderTraversalByRecursion(TreeNode<E> root, Visitor<E> visitor) {
-        if (root == null) return;
-        postOrderTraversalByRecursion(root.left, visitor);
-        postOrderTraversalByRecursion(root.right, visitor);
-        visitor.visit(root.e);
+    public boolean postOrderTraversalByRecursion(TreeNode<E> root, Visitor<E> visitor) {
+        if (root == null) return false;
+        return postOrderTraversalByRecursion(root.left, visitor)
+                || postOrderTraversalByRecursion(root.right, visitor)
+                || visitor.visit(root.e);
     }
 
     /**
@@ -0,0 +1,228 @@
+package pers.fw.data_structure.tree;
+
+import pers.fw.data_structure.Stack;
+import pers.fw.data_structure.interf.Visitor;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 并发二叉搜索树（有序集合），适合读多写少的场景
+ * 读：contains和遍历不加锁。节点的引用均为volatile，且节点一旦加入就不会移动（不旋转、删除时也不用后继节点的值覆盖），
+ * 所以任意时刻沿着子节点引用查找，都能到达该元素应在的位置；
+ * 写：add只锁住新节点的父节点，remove只锁住被删节点及其父节点，加锁后再校验节点状态（乐观校验），校验失败则重新查找；
+ * 加锁顺序总是先祖先后子孙，而树中祖先关系不会反转，所以不会死锁
+ * 删除分两步：先标记deleted（逻辑删除），度小于2的节点再从父节点上断开（物理删除）并标记unlinked；
+ * 度为2的节点只做逻辑删除，作为路由节点保留，子节点减少后会被顺带断开，再次添加同一元素时直接恢复
+ * 不做平衡：元素以随机顺序到达时树高期望为O(logn)，有序到达时会退化
+ *
+ * @param <E>
+ */
+public class ConcurrentBinarySearchTree<E extends Comparable<E>> {
+
+    private static final class Node<E> {
+        volatile E e;
+        volatile Node<E> left;
+        volatile Node<E> right;
+        /**
+         * 逻辑删除标记
+         */
+        volatile boolean deleted;
+        /**
+         * 已从树上断开，断开的节点不能再挂新的子节点
+         */
+        volatile boolean unlinked;
+
+        Node(E e) {
+            this.e = e;
+        }
+
+        boolean hasTwoChildren() {
+            return left != null && right != null;
+        }
+    }
+
+    /**
+     * 哨兵节点，不保存元素，真正的根节点是它的右子节点，这样根节点也有父节点可以加锁
+     */
+    private final Node<E> holder = new Node<>(null);
+    private final LongAdder size = new LongAdder();
+
+    private void checkElementNull(E e) {
+        if (e == null) throw new NullPointerException("element must not be null");
+    }
+
+    public boolean contains(E e) {
+        checkElementNull(e);
+        Node<E> node = holder.right;
+        while (node != null) {
+            int compare = e.compareTo(node.e);
+            if (compare == 0) return !node.deleted;
+            node = compare < 0 ? node.left : node.right;
+        }
+        return false;
+    }
+
+    /**
+     * 添加元素，已存在则覆盖
+     *
+     * @param e
+     * @return 元素原本不存在时返回true
+     */
+    public boolean add(E e) {
+        checkElementNull(e);
+        while (true) {
+            Node<E> parent = holder;
+            Node<E> node = holder.right;
+            int compare = 1;
+            while (node != null) {
+                compare = e.compareTo(node.e);
+                if (compare == 0) break;
+                parent = node;
+                node = compare < 0 ? node.left : node.right;
+            }
+            if (node != null) {
+                //找到了相同元素（可能已被逻辑删除）
+                synchronized (node) {
+                    if (node.unlinked) continue;
+                    node.e = e;
+                    if (!node.deleted) return false;
+                    node.deleted = false;
+                    size.increment();
+                    return true;
+                }
+            }
+            synchronized (parent) {
+                //校验：父节点仍在树上且对应的子节点位置仍为空
+                if (parent.unlinked) continue;
+                if (compare < 0) {
+                    if (parent.left != null) continue;
+                    parent.left = new Node<>(e);
+                } else {
+                    if (parent.right != null) continue;
+                    parent.right = new Node<>(e);
+                }
+                size.increment();
+                return true;
+            }
+        }
+    }
+
+    /**
+     * 删除元素
+     *
+     * @param e
+     * @return 元素存在时返回true
+     */
+    public boolean remove(E e) {
+        checkElementNull(e);
+        while (true) {
+            Node<E> parent = holder;
+            Node<E> node = holder.right;
+            while (node != null) {
+                int compare = e.compareTo(node.e);
+                if (compare == 0) break;
+                parent = node;
+                node = compare < 0 ? node.left : node.right;
+            }
+            if (node == null || node.deleted) return false;
+            int result = removeNode(parent, node);
+            if (result < 0) continue;
+            size.decrement();
+            //被删节点的父节点若是路由节点，子节点减少后可能也可以断开了
+            if (parent != holder && parent.deleted) {
+                tryUnlink(parent.e);
+            }
+            return true;
+        }
+    }
+
+    /**
+     * 锁住parent和node后删除node
+     *
+     * @return 1：删除成功；-1：校验失败需要重试
+     */
+    private int removeNode(Node<E> parent, Node<E> node) {
+        synchronized (parent) {
+            synchronized (node) {
+                if (parent.unlinked || node.unlinked || node.deleted) return -1;
+                if (parent.left != node && parent.right != node) return -1;
+                node.deleted = true;
+                if (!node.hasTwoChildren()) {
+                    unlink(parent, node);
+                }
+                return 1;
+            }
+        }
+    }
+
+    /**
+     * 将度小于2的node从parent上断开，需持有两者的锁
+     */
+    private void unlink(Node<E> parent, Node<E> node) {
+        Node<E> child = node.left != null ? node.left : node.right;
+        node.unlinked = true;
+        if (parent.left == node) {
+            parent.left = child;
+        } else {
+            parent.right = child;
+        }
+    }
+
+    /**
+     * 尝试断开已逻辑删除且度小于2的路由节点，只尝试一次，失败则保留到下次
+     *
+     * @param e 路由节点的元素
+     */
+    private void tryUnlink(E e) {
+        Node<E> parent = holder;
+        Node<E> node = holder.right;
+        while (node != null) {
+            int compare = e.compareTo(node.e);
+            if (compare == 0) break;
+            parent = node;
+            node = compare < 0 ? node.left : node.right;
+        }
+        if (node == null || !node.deleted) return;
+        synchronized (parent) {
+            synchronized (node) {
+                if (parent.unlinked || node.unlinked || !node.deleted || node.hasTwoChildren()) return;
+                if (parent.left != node && parent.right != node) return;
+                unlink(parent, node);
+            }
+        }
+    }
+
+    /**
+     * 中序遍历，不加锁，结果是弱一致的：遍历期间的并发修改可能可见也可能不可见，但不会重复访问或抛出异常
+     *
+     * @param visitor
+     * @return 访问器返回true而提前停止时返回true
+     */
+    public boolean inOrderTraversal(Visitor<E> visitor) {
+        Stack<Node<E>> stack = new Stack<>();
+        Node<E> node = holder.right;
+        while (node != null || !stack.isEmpty()) {
+            while (node != null) {
+                stack.push(node);
+                node = node.left;
+            }
+            node = stack.pop();
+            if (!node.deleted && visitor.visit(node.e)) return true;
+            node = node.right;
+        }
+        return false;
+    }
+
+    /**
+     * 元素数量，并发修改时为近似值
+     *
+     * @return
+     */
+    public int size() {
+        return (int) size.sum();
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+}
@@ -0,0 +1,285 @@
+package pers.fw.data_structure.tree;
+
+import pers.fw.data_structure.Queue;
+import pers.fw.data_structure.Stack;
+import pers.fw.data_structure.interf.ThreadSafeVisitor;
+import pers.fw.data_structure.interf.Visitor;
+import pers.fw.data_structure.tree.BinaryTree.TreeNode;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiFunction;
+import java.util.function.BinaryOperator;
+import java.util.function.ToLongFunction;
+
+/**
+ * 二叉树的并行遍历与聚合（fork/join）
+ * 从根节点开始按子树拆分任务：深度小于sequentialCutoff的节点把左子树fork出去、自己处理右子树，再把两边的结果与当前节点合并；
+ * 达到该深度的子树在当前线程内顺序处理（基于栈，不递归）
+ * 平衡树拆分出约2^sequentialCutoff个任务；退化的树拆分效果有限
+ * 遍历期间树不能被修改
+ *
+ * @param <E>
+ */
+public class ParallelTraversal<E> {
+    private final BinaryTree<E> tree;
+    private final int sequentialCutoff;
+    private final ForkJoinPool pool;
+
+    /**
+     * 使用公共线程池，拆分深度为 log2(并行度)+3，即每个线程大约8个任务
+     *
+     * @param tree
+     */
+    public ParallelTraversal(BinaryTree<E> tree) {
+        this(tree, defaultCutoff(ForkJoinPool.commonPool()), ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param tree
+     * @param sequentialCutoff 拆分深度，深度达到该值的子树不再拆分，0表示完全顺序执行
+     * @param pool
+     */
+    public ParallelTraversal(BinaryTree<E> tree, int sequentialCutoff, ForkJoinPool pool) {
+        if (tree == null) throw new NullPointerException("tree must not be null");
+        if (pool == null) throw new NullPointerException("pool must not be null");
+        if (sequentialCutoff < 0) throw new RuntimeException("sequentialCutoff must be ge zero");
+        this.tree = tree;
+        this.sequentialCutoff = sequentialCutoff;
+        this.pool = pool;
+    }
+
+    private static int defaultCutoff(ForkJoinPool pool) {
+        return 32 - Integer.numberOfLeadingZeros(pool.getParallelism()) + 3;
+    }
+
+    /**
+     * 子树的聚合方式
+     *
+     * @param <E>
+     * @param <R>
+     */
+    private interface Reducer<E, R> {
+        /**
+         * 顺序计算以node为根的整棵子树，node可能为null
+         */
+        R sequential(TreeNode<E> node);
+
+        /**
+         * 合并node与其左右子树的结果
+         */
+        R combine(TreeNode<E> node, R left, R right);
+    }
+
+    private class ReduceTask<R> extends RecursiveTask<R> {
+        private final TreeNode<E> node;
+        private final int depth;
+        private final Reducer<E, R> reducer;
+
+        ReduceTask(TreeNode<E> node, int depth, Reducer<E, R> reducer) {
+            this.node = node;
+            this.depth = depth;
+            this.reducer = reducer;
+        }
+
+        @Override
+        protected R compute() {
+            if (node == null || depth >= sequentialCutoff) {
+                return reducer.sequential(node);
+            }
+            ReduceTask<R> leftTask = new ReduceTask<>(node.left, depth + 1, reducer);
+            leftTask.fork();
+            R right = new ReduceTask<>(node.right, depth + 1, reducer).compute();
+            return reducer.combine(node, leftTask.join(), right);
+        }
+    }
+
+    private <R> R reduce(Reducer<E, R> reducer) {
+        return pool.invoke(new ReduceTask<>(tree.root, 0, reducer));
+    }
+
+    /**
+     * 前序顺序访问子树的每个节点
+     */
+    private interface NodeVisitor<E> {
+        void visit(TreeNode<E> node);
+    }
+
+    private static <E> void forEachNode(TreeNode<E> node, NodeVisitor<E> visitor) {
+        if (node == null) return;
+        Stack<TreeNode<E>> stack = new Stack<>();
+        stack.push(node);
+        while (!stack.isEmpty()) {
+            node = stack.pop();
+            visitor.visit(node);
+            if (node.right != null) stack.push(node.right);
+            if (node.left != null) stack.push(node.left);
+        }
+    }
+
+    /**
+     * 访问每个元素，顺序不确定
+     * 只有访问器实现了{@link ThreadSafeVisitor}才会并发调用，否则在当前线程中按前序遍历顺序调用
+     * 任一线程的访问器返回true后，所有任务共享的停止标记被置位，其他任务在访问下一个节点前看到标记即停止；
+     * 已经开始的visit调用不会被打断，所以停止后仍可能有少量元素被其他线程访问
+     *
+     * @param visitor
+     * @return 访问器返回true而提前停止时返回true
+     */
+    public boolean forEach(Visitor<E> visitor) {
+        if (!(visitor instanceof ThreadSafeVisitor)) {
+            return tree.preOrderTraversal(visitor);
+        }
+        AtomicBoolean stopped = new AtomicBoolean();
+        reduce(new Reducer<E, Void>() {
+            @Override
+            public Void sequential(TreeNode<E> node) {
+                if (node == null) return null;
+                Stack<TreeNode<E>> stack = new Stack<>();
+                stack.push(node);
+                while (!stack.isEmpty() && !stopped.get()) {
+                    node = stack.pop();
+                    if (visitor.visit(node.e)) {
+                        stopped.set(true);
+                        return null;
+                    }
+                    if (node.right != null) stack.push(node.right);
+                    if (node.left != null) stack.push(node.left);
+                }
+                return null;
+            }
+
+            @Override
+            public Void combine(TreeNode<E> node, Void left, Void right) {
+                if (!stopped.get() && visitor.visit(node.e)) stopped.set(true);
+                return null;
+            }
+        });
+        return stopped.get();
+    }
+
+    /**
+     * 节点数量
+     *
+     * @return
+     */
+    public long count() {
+        return reduce(new Reducer<E, Long>() {
+            @Override
+            public Long sequential(TreeNode<E> node) {
+                long[] count = {0};
+                forEachNode(node, n -> count[0]++);
+                return count[0];
+            }
+
+            @Override
+            public Long combine(TreeNode<E> node, Long left, Long right) {
+                return left + right + 1;
+            }
+        });
+    }
+
+    /**
+     * 元素映射为long后求和
+     *
+     * @param mapper
+     * @return
+     */
+    public long sum(ToLongFunction<? super E> mapper) {
+        return reduce(new Reducer<E, Long>() {
+            @Override
+            public Long sequential(TreeNode<E> node) {
+                long[] sum = {0};
+                forEachNode(node, n -> sum[0] += mapper.applyAsLong(n.e));
+                return sum[0];
+            }
+
+            @Override
+            public Long combine(TreeNode<E> node, Long left, Long right) {
+                return left + right + mapper.applyAsLong(node.e);
+            }
+        });
+    }
+
+    /**
+     * 通用聚合：每个子树从identity开始用accumulator累加元素，子树之间的结果用combiner合并
+     * combiner需满足结合律，且combiner(identity, r)等于r
+     *
+     * @param identity
+     * @param accumulator
+     * @param combiner
+     * @param <R>
+     * @return
+     */
+    public <R> R fold(R identity, BiFunction<R, ? super E, R> accumulator, BinaryOperator<R> combiner) {
+        return reduce(new Reducer<E, R>() {
+            @Override
+            public R sequential(TreeNode<E> node) {
+                Object[] result = {identity};
+                forEachNode(node, n -> result[0] = accumulator.apply((R) result[0], n.e));
+                return (R) result[0];
+            }
+
+            @Override
+            public R combine(TreeNode<E> node, R left, R right) {
+                return accumulator.apply(combiner.apply(left, right), node.e);
+            }
+        });
+    }
+
+    /**
+     * 树的高度，顺序部分使用层序遍历
+     *
+     * @return
+     */
+    public int height() {
+        return reduce(new Reducer<E, Integer>() {
+            @Override
+            public Integer sequential(TreeNode<E> node) {
+                if (node == null) return 0;
+                Queue<TreeNode<E>> queue = new Queue<>();
+                queue.offer(node);
+                int height = 0;
+                while (!queue.isEmpty()) {
+                    int levelSize = queue.size();
+                    for (int i = 0; i < levelSize; i++) {
+                        TreeNode<E> n = queue.poll();
+                        if (n.left != null) queue.offer(n.left);
+                        if (n.right != null) queue.offer(n.right);
+                    }
+                    height++;
+                }
+                return height;
+            }
+
+            @Override
+            public Integer combine(TreeNode<E> node, Integer left, Integer right) {
+                return 1 + Math.max(left, right);
+            }
+        });
+    }
+
+    /**
+     * 是否是真二叉树（所有节点的度都要么为 0，要么为 2）
+     *
+     * @return
+     */
+    public boolean isProper() {
+        return reduce(new Reducer<E, Boolean>() {
+            @Override
+            public Boolean sequential(TreeNode<E> node) {
+                boolean[] proper = {true};
+                forEachNode(node, n -> {
+                    if (n.degree() == 1) proper[0] = false;
+                });
+                return proper[0];
+            }
+
+            @Override
+            public Boolean combine(TreeNode<E> node, Boolean left, Boolean right) {
+                return left && right && node.degree() != 1;
+            }
+        });
+    }
+}
@@ -0,0 +1,291 @@
+package pers.fw.data_structure.tree;
+
+import pers.fw.data_structure.Stack;
+import pers.fw.data_structure.interf.Visitor;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+
+/**
+ * 持久化（不可变）AVL树，有序集合
+ * 每个对象都是一个只读的版本：add、remove不修改当前版本，而是复制从根到修改位置的路径（O(logn)个节点）生成新版本，其余子树由新旧版本共享，
+ * 所以保留某个版本（快照）不需要任何复制，旧版本上的遍历、迭代也不受后续修改的影响
+ * 节点没有父节点引用（一个节点可能属于多个版本），中序迭代和前驱/后继都基于栈或从根查找；Morris遍历会临时修改节点，这里一律改用基于栈的遍历
+ * 读线程可以不加锁地读取任意版本，但版本需要通过volatile字段或{@link java.util.concurrent.atomic.AtomicReference}发布，保证读线程看到完整构造的节点
+ *
+ * @param <E>
+ */
+public final class PersistentTree<E extends Comparable<E>> extends BinaryTree<E> {
+
+    private static final class Node<E> extends TreeNode<E> {
+        /**
+         * 叶子节点高度为1
+         */
+        final int height;
+
+        Node(E e, TreeNode<E> left, TreeNode<E> right) {
+            super(e);
+            this.left = left;
+            this.right = right;
+            this.height = 1 + Math.max(heightOf(left), heightOf(right));
+            updateSize();
+        }
+
+        static int heightOf(TreeNode<?> node) {
+            return node == null ? 0 : ((Node<?>) node).height;
+        }
+    }
+
+    /**
+     * 空树
+     */
+    public PersistentTree() {
+    }
+
+    private PersistentTree(TreeNode<E> root) {
+        this.root = root;
+    }
+
+    private void checkElementNull(E e) {
+        if (e == null) throw new NullPointerException("element must not be null");
+    }
+
+    /**
+     * 添加元素，已存在则覆盖
+     *
+     * @param e
+     * @return 新版本，当前版本不变
+     */
+    public PersistentTree<E> add(E e) {
+        checkElementNull(e);
+        return new PersistentTree<>(insert(root, e));
+    }
+
+    /**
+     * 删除元素
+     *
+     * @param e
+     * @return 新版本；元素不存在时返回当前版本
+     */
+    public PersistentTree<E> remove(E e) {
+        checkElementNull(e);
+        if (!contains(e)) return this;
+        return new PersistentTree<>(delete(root, e));
+    }
+
+    public boolean contains(E e) {
+        checkElementNull(e);
+        return findNode(e) != null;
+    }
+
+    /**
+     * 子树大小保存在节点中，O(1)
+     *
+     * @return
+     */
+    @Override
+    public int size() {
+        return TreeNode.sizeOf(root);
+    }
+
+    public boolean isEmpty() {
+        return root == null;
+    }
+
+    /**
+     * @return 最小元素，树为空时返回null
+     */
+    public E first() {
+        TreeNode<E> node = root;
+        if (node == null) return null;
+        while (node.left != null) {
+            node = node.left;
+        }
+        return node.e;
+    }
+
+    /**
+     * @return 最大元素，树为空时返回null
+     */
+    public E last() {
+        TreeNode<E> node = root;
+        if (node == null) return null;
+        while (node.right != null) {
+            node = node.right;
+        }
+        return node.e;
+    }
+
+    private TreeNode<E> findNode(E e) {
+        TreeNode<E> node = root;
+        while (node != null) {
+            int compare = e.compareTo(node.e);
+            if (compare == 0) return node;
+            node = compare < 0 ? node.left : node.right;
+        }
+        return null;
+    }
+
+    //-----------------路径复制-----------------//
+
+    private TreeNode<E> insert(TreeNode<E> node, E e) {
+        if (node == null) return new Node<>(e, null, null);
+        int compare = e.compareTo(node.e);
+        if (compare < 0) return balance(node.e, insert(node.left, e), node.right);
+        if (compare > 0) return balance(node.e, node.left, insert(node.right, e));
+        return new Node<>(e, node.left, node.right);
+    }
+
+    /**
+     * 调用前已确认e存在
+     */
+    private TreeNode<E> delete(TreeNode<E> node, E e) {
+        int compare = e.compareTo(node.e);
+        if (compare < 0) return balance(node.e, delete(node.left, e), node.right);
+        if (compare > 0) return balance(node.e, node.left, delete(node.right, e));
+        if (node.left == null) return node.right;
+        if (node.right == null) return node.left;
+        //度为2：用后继（右子树最小元素）取代
+        TreeNode<E> successor = node.right;
+        while (successor.left != null) {
+            successor = successor.left;
+        }
+        return balance(successor.e, node.left, deleteMin(node.right));
+    }
+
+    private TreeNode<E> deleteMin(TreeNode<E> node) {
+        if (node.left == null) return node.right;
+        return balance(node.e, deleteMin(node.left), node.right);
+    }
+
+    /**
+     * 以e、left、right构造新节点，左右子树高度差为2时旋转（LL、LR、RR、RL），旋转涉及的节点同样是新建的
+     */
+    private TreeNode<E> balance(E e, TreeNode<E> left, TreeNode<E> right) {
+        int leftHeight = Node.heightOf(left);
+        int rightHeight = Node.heightOf(right);
+        if (leftHeight > rightHeight + 1) {
+            if (Node.heightOf(left.left) >= Node.heightOf(left.right)) {
+                //LL
+                return new Node<>(left.e, left.left, new Node<>(e, left.right, right));
+            }
+            //LR
+            TreeNode<E> child = left.right;
+            return new Node<>(child.e, new Node<>(left.e, left.left, child.left), new Node<>(e, child.right, right));
+        }
+        if (rightHeight > leftHeight + 1) {
+            if (Node.heightOf(right.right) >= Node.heightOf(right.left)) {
+                //RR
+                return new Node<>(right.e, new Node<>(e, left, right.left), right.right);
+            }
+            //RL
+            TreeNode<E> child = right.left;
+            return new Node<>(child.e, new Node<>(e, left, child.left), new Node<>(right.e, child.right, right.right));
+        }
+        return new Node<>(e, left, right);
+    }
+
+    //-----------------遍历与迭代-----------------//
+
+    /**
+     * 节点在版本间共享，不能建立Morris线索，两种模式都使用基于栈的遍历
+     */
+    @Override
+    public boolean preOrderTraversal(Visitor<E> visitor, TraversalMode mode) {
+        return preOrderTraversal(visitor);
+    }
+
+    @Override
+    public boolean inOrderTraversal(Visitor<E> visitor, TraversalMode mode) {
+        return inOrderTraversal(visitor);
+    }
+
+    @Override
+    public boolean postOrderTraversal(Visitor<E> visitor, TraversalMode mode) {
+        return postOrderTraversal(visitor);
+    }
+
+    /**
+     * 没有父节点引用，从根查找：O(logn)
+     */
+    @Override
+    protected TreeNode<E> inOrderNextNode(TreeNode<E> node) {
+        if (node == null) return null;
+        TreeNode<E> next = null;
+        for (TreeNode<E> p = root; p != null; ) {
+            if (node.e.compareTo(p.e) < 0) {
+                next = p;
+                p = p.left;
+            } else {
+                p = p.right;
+            }
+        }
+        return next;
+    }
+
+    /**
+     * 没有父节点引用，从根查找：O(logn)
+     */
+    @Override
+    protected TreeNode<E> inOrderPrevNode(TreeNode<E> node) {
+        if (node == null) return null;
+        TreeNode<E> prev = null;
+        for (TreeNode<E> p = root; p != null; ) {
+            if (node.e.compareTo(p.e) > 0) {
+                prev = p;
+                p = p.right;
+            } else {
+                p = p.left;
+            }
+        }
+        return prev;
+    }
+
+    /**
+     * 中序迭代：左链入栈，均摊O(1)；版本不可变，迭代器不会失败
+     *
+     * @return
+     */
+    @Override
+    public Iterator<E> iterator() {
+        return new Iterator<E>() {
+            private final Stack<TreeNode<E>> stack = new Stack<>();
+
+            {
+                pushLeftEdge(root);
+            }
+
+            private void pushLeftEdge(TreeNode<E> node) {
+                for (; node != null; node = node.left) {
+                    stack.push(node);
+                }
+            }
+
+            @Override
+            public boolean hasNext() {
+                return !stack.isEmpty();
+            }
+
+            @Override
+            public E next() {
+                if (stack.isEmpty()) throw new NoSuchElementException();
+                TreeNode<E> node = stack.pop();
+                pushLeftEdge(node.right);
+                return node.e;
+            }
+        };
+    }
+
+    @Override
+    public Spliterator<E> spliterator() {
+        return Spliterators.spliterator(iterator(), size(), spliteratorCharacteristics());
+    }
+
+    @Override
+    protected int spliteratorCharacteristics() {
+        return super.spliteratorCharacteristics() | Spliterator.SORTED | Spliterator.DISTINCT | Spliterator.NONNULL
+                | Spliterator.IMMUTABLE;
+    }
+}
@@ -0,0 +1,150 @@
+package pers.fw.data_structure.tree;
+
+import pers.fw.data_structure.interf.Visitor;
+import pers.fw.data_structure.tree.BinaryTree.TreeNode;
+
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * 二叉搜索树的范围视图，由{@link BinarySearchTree#subSet}、{@link BinarySearchTree#headSet}、{@link BinarySearchTree#tailSet}创建
+ * 不保存任何元素：每次访问时先沿一条路径找到范围内的第一个（或最后一个）节点，再用中序后继逐个前进，直到超出上界
+ * 下界或上界为null表示该方向不设界
+ *
+ * @param <E>
+ */
+public class RangeView<E extends Comparable<E>> implements Iterable<E> {
+    private final BinarySearchTree<E> tree;
+    private final E low;
+    private final boolean lowInclusive;
+    private final E high;
+    private final boolean highInclusive;
+
+    RangeView(BinarySearchTree<E> tree, E low, boolean lowInclusive, E high, boolean highInclusive) {
+        this.tree = tree;
+        this.low = low;
+        this.lowInclusive = lowInclusive;
+        this.high = high;
+        this.highInclusive = highInclusive;
+    }
+
+    private boolean tooLow(E e) {
+        if (low == null) return false;
+        int compare = e.compareTo(low);
+        return compare < 0 || (compare == 0 && !lowInclusive);
+    }
+
+    private boolean tooHigh(E e) {
+        if (high == null) return false;
+        int compare = e.compareTo(high);
+        return compare > 0 || (compare == 0 && !highInclusive);
+    }
+
+    public boolean inRange(E e) {
+        return !tooLow(e) && !tooHigh(e);
+    }
+
+    /**
+     * 范围内最小的节点
+     */
+    private TreeNode<E> lowestNode() {
+        TreeNode<E> node = low == null ? tree.firstNode() : tree.ceilingNode(low, lowInclusive);
+        return node == null || tooHigh(node.e) ? null : node;
+    }
+
+    /**
+     * 范围内最大的节点
+     */
+    private TreeNode<E> highestNode() {
+        TreeNode<E> node = high == null ? tree.lastNode() : tree.floorNode(high, highInclusive);
+        return node == null || tooLow(node.e) ? null : node;
+    }
+
+    /**
+     * @return 范围内的最小元素，不存在则返回null
+     */
+    public E first() {
+        TreeNode<E> node = lowestNode();
+        return node == null ? null : node.e;
+    }
+
+    /**
+     * @return 范围内的最大元素，不存在则返回null
+     */
+    public E last() {
+        TreeNode<E> node = highestNode();
+        return node == null ? null : node.e;
+    }
+
+    public boolean contains(E e) {
+        return e != null && inRange(e) && tree.contains(e);
+    }
+
+    public boolean isEmpty() {
+        return lowestNode() == null;
+    }
+
+    /**
+     * 范围内的元素数量，需要逐个数，O(h + k)
+     *
+     * @return
+     */
+    public int size() {
+        int size = 0;
+        for (TreeNode<E> node = lowestNode(); node != null && !tooHigh(node.e); node = tree.inOrderNextNode(node)) {
+            size++;
+        }
+        return size;
+    }
+
+    /**
+     * 升序访问范围内的元素
+     *
+     * @param visitor
+     * @return 访问器返回true而提前停止时返回true
+     */
+    public boolean inOrderTraversal(Visitor<E> visitor) {
+        for (TreeNode<E> node = lowestNode(); node != null && !tooHigh(node.e); node = tree.inOrderNextNode(node)) {
+            if (visitor.visit(node.e)) return true;
+        }
+        return false;
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        return new Iterator<E>() {
+            private TreeNode<E> next = lowestNode();
+            private final int expectedModCount = tree.modCount;
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public E next() {
+                if (tree.modCount != expectedModCount) throw new ConcurrentModificationException();
+                if (next == null) throw new NoSuchElementException();
+                E e = next.e;
+                next = tree.inOrderNextNode(next);
+                if (next != null && tooHigh(next.e)) next = null;
+                return e;
+            }
+        };
+    }
+
+    @Override
+    public Spliterator<E> spliterator() {
+        return Spliterators.spliteratorUnknownSize(iterator(),
+                Spliterator.ORDERED | Spliterator.SORTED | Spliterator.DISTINCT | Spliterator.NONNULL);
+    }
+
+    public Stream<E> stream() {
+        return StreamSupport.stream(spliterator(), false);
+    }
+}
@@ -0,0 +1,195 @@
+package pers.fw.data_structure.tree;
+
+import java.util.Collection;
+
+/**
+ * 红黑树
+ * 1.节点是红色或黑色；2.根节点是黑色；3.叶子节点（null）都是黑色；4.红色节点的子节点都是黑色；5.从任一节点到其叶子节点的所有路径都包含相同数目的黑色节点
+ * 树高不超过2log(n+1)，添加、删除后的旋转次数都为O(1)，适合写入较多的场景
+ *
+ * @param <E>
+ */
+public class RedBlackTree<E extends Comparable<E>> extends BalancedBinarySearchTree<E> {
+    private static final boolean RED = false;
+    private static final boolean BLACK = true;
+
+    private static class RBNode<E> extends TreeNode<E> {
+        /**
+         * 新节点默认为红色，这样添加时能尽快满足红黑树的性质
+         */
+        boolean color = RED;
+
+        public RBNode(E e, TreeNode<E> parent) {
+            super(e, parent);
+        }
+    }
+
+    public RedBlackTree() {
+    }
+
+    public RedBlackTree(boolean orderStatistic) {
+        super(orderStatistic);
+    }
+
+    public RedBlackTree(Collection<E> collection) {
+        super(collection, false);
+    }
+
+    public RedBlackTree(Collection<E> collection, boolean orderStatistic) {
+        super(collection, orderStatistic);
+    }
+
+    /**
+     * 批量构建的树除最深一层外都是满的：最深一层（非根）染红，其余染黑
+     * 这样从任一节点到空子节点的路径上黑色节点数都相同，且红色节点的父节点都是黑色
+     */
+    @Override
+    protected void afterBulkBuild(TreeNode<E> node, int depth, int maxDepth) {
+        color(node, depth == maxDepth && depth > 0 ? RED : BLACK);
+    }
+
+    @Override
+    protected TreeNode<E> createNode(E e, TreeNode<E> parent) {
+        return new RBNode<>(e, parent);
+    }
+
+    @Override
+    protected void afterAdd(TreeNode<E> node) {
+        TreeNode<E> parent = node.parent;
+        //添加的是根节点或上溢到了根节点
+        if (parent == null) {
+            black(node);
+            return;
+        }
+        //父节点为黑色，无需处理
+        if (isBlack(parent)) return;
+
+        TreeNode<E> uncle = parent.sibling();
+        TreeNode<E> grand = parent.parent;
+        red(grand);
+        if (isRed(uncle)) {
+            //叔父节点为红色：父节点、叔父节点染黑，祖父节点当作新添加的节点继续向上处理
+            black(parent);
+            black(uncle);
+            afterAdd(grand);
+            return;
+        }
+        //叔父节点为黑色：旋转
+        if (parent.isLeftChild()) {
+            if (node.isLeftChild()) {
+                //LL
+                black(parent);
+            } else {
+                //LR
+                black(node);
+                rotateLeft(parent);
+            }
+            rotateRight(grand);
+        } else {
+            if (node.isLeftChild()) {
+                //RL
+                black(node);
+                rotateRight(parent);
+            } else {
+                //RR
+                black(parent);
+            }
+            rotateLeft(grand);
+        }
+    }
+
+    @Override
+    protected void afterRemove(TreeNode<E> node, TreeNode<E> replacement) {
+        //删除的是红色节点，无需处理
+        if (isRed(node)) return;
+        //用于取代的子节点是红色，染黑即可
+        if (isRed(replacement)) {
+            black(replacement);
+            return;
+        }
+        TreeNode<E> parent = node.parent;
+        //删除的是根节点
+        if (parent == null) return;
+
+        //删除的是黑色叶子节点（下溢）；node已从parent上断开，所以需要通过parent的空子节点判断方向
+        boolean left = parent.left == null || node.isLeftChild();
+        TreeNode<E> sibling = left ? parent.right : parent.left;
+        if (left) {
+            if (isRed(sibling)) {
+                //兄弟节点为红色，转换成兄弟节点为黑色的情况
+                black(sibling);
+                red(parent);
+                rotateLeft(parent);
+                sibling = parent.right;
+            }
+            if (isBlack(sibling.left) && isBlack(sibling.right)) {
+                //兄弟节点没有红色子节点可借，父节点向下合并
+                boolean parentBlack = isBlack(parent);
+                black(parent);
+                red(sibling);
+                if (parentBlack) {
+                    afterRemove(parent, null);
+                }
+            } else {
+                //兄弟节点至少有1个红色子节点，借一个过来
+                if (isBlack(sibling.right)) {
+                    rotateRight(sibling);
+                    sibling = parent.right;
+                }
+                color(sibling, colorOf(parent));
+                black(sibling.right);
+                black(parent);
+                rotateLeft(parent);
+            }
+        } else {
+            if (isRed(sibling)) {
+                black(sibling);
+                red(parent);
+                rotateRight(parent);
+                sibling = parent.left;
+            }
+            if (isBlack(sibling.left) && isBlack(sibling.right)) {
+                boolean parentBlack = isBlack(parent);
+                black(parent);
+                red(sibling);
+                if (parentBlack) {
+                    afterRemove(parent, null);
+                }
+            } else {
+                if (isBlack(sibling.left)) {
+                    rotateLeft(sibling);
+                    sibling = parent.left;
+                }
+                color(sibling, colorOf(parent));
+                black(sibling.left);
+                black(parent);
+                rotateRight(parent);
+            }
+        }
+    }
+
+    private boolean colorOf(TreeNode<E> node) {
+        return node == null ? BLACK : ((RBNode<E>) node).color;
+    }
+
+    private boolean isBlack(TreeNode<E> node) {
+        return colorOf(node) == BLACK;
+    }
+
+    private boolean isRed(TreeNode<E> node) {
+        return colorOf(node) == RED;
+    }
+
+    private void color(TreeNode<E> node, boolean color) {
+        if (node == null) return;
+        ((RBNode<E>) node).color = color;
+    }
+
+    private void red(TreeNode<E> node) {
+        color(node, RED);
+    }
+
+    private void black(TreeNode<E> node) {
+        color(node, BLACK);
+    }
+}
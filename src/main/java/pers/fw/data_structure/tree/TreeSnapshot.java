@@ -0,0 +1,57 @@
+package pers.fw.data_structure.tree;
+
+import pers.fw.data_structure.SnapshotIO;
+import pers.fw.data_structure.interf.KeyCodec;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * 二叉搜索树快照
+ * 格式：魔数、版本、元素数量，之后是按中序（升序）排列的元素编码
+ * 恢复时元素已经有序且不重复，直接按批量构建的方式生成完全平衡的树，O(n)且不调用compareTo，耗时主要在读文件和解码
+ */
+public final class TreeSnapshot {
+    private static final int MAGIC = 0x42535453;
+    private static final int VERSION = 1;
+
+    private TreeSnapshot() {
+    }
+
+    public static <E extends Comparable<E>> void write(BinarySearchTree<E> tree, KeyCodec<E> codec, Path path) throws IOException {
+        try (SnapshotIO.Writer writer = new SnapshotIO.Writer(path)) {
+            writer.writeInt(MAGIC);
+            writer.writeInt(VERSION);
+            writer.writeInt(tree.size());
+            for (E e : tree) {
+                writer.write(e, codec);
+            }
+            writer.commit();
+        }
+    }
+
+    /**
+     * 恢复到一棵空树中，树的类型（普通、AVL、红黑）和是否开启顺序统计模式由调用方决定
+     * 快照必须由{@link TreeSnapshot#write}生成且使用相同的编解码器，恢复时不再检查元素顺序
+     *
+     * @param path
+     * @param codec
+     * @param tree  空树
+     * @return tree
+     */
+    public static <E extends Comparable<E>, T extends BinarySearchTree<E>> T read(Path path, KeyCodec<E> codec, T tree) throws IOException {
+        if (tree.size() != 0) throw new RuntimeException("tree must be empty");
+        try (SnapshotIO.Reader reader = new SnapshotIO.Reader(path)) {
+            if (reader.readInt() != MAGIC) throw new IOException("not a tree snapshot: " + path);
+            int version = reader.readInt();
+            if (version != VERSION) throw new IOException("unsupported snapshot version " + version);
+            int size = reader.readInt();
+            E[] elements = (E[]) new Comparable[size];
+            for (int i = 0; i < size; i++) {
+                elements[i] = reader.read(codec);
+            }
+            tree.restoreSorted(elements, size);
+            return tree;
+        }
+    }
+}
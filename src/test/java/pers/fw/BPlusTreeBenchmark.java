@@ -0,0 +1,135 @@
+package pers.fw;
+
+import pers.fw.data_structure.tree.BPlusTree;
+import pers.fw.data_structure.tree.RedBlackTree;
+
+import java.util.Random;
+
+/**
+ * 比较B+树与指针实现的二叉搜索树（红黑树）：随机插入、随机查找、全量有序遍历、范围扫描的耗时，以及每个元素的额外内存
+ * 参数：元素数量列表（逗号分隔，默认1000000,10000000），B+树扇出列表（逗号分隔，默认16,64,256）
+ * 1亿个元素需要较大的堆，例如：java -Xmx24g pers.fw.BPlusTreeBenchmark 1000000,10000000,100000000
+ */
+public class BPlusTreeBenchmark {
+    private static final int RANGE_LENGTH = 1000;
+    private static final int QUERIES = 1000000;
+
+    public static void main(String[] args) {
+        int[] sizes = parse(args.length > 0 ? args[0] : "1000000,10000000");
+        int[] fanouts = parse(args.length > 1 ? args[1] : "16,64,256");
+        for (int n : sizes) {
+            Integer[] keys = shuffledKeys(n, new Random(42));
+            System.out.println("n=" + n);
+            runRedBlackTree(keys);
+            for (int fanout : fanouts) {
+                runBPlusTree(keys, fanout);
+            }
+        }
+    }
+
+    private static int[] parse(String list) {
+        String[] parts = list.split(",");
+        int[] values = new int[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            values[i] = Integer.parseInt(parts[i].trim());
+        }
+        return values;
+    }
+
+    /**
+     * 0..n-1的随机排列，元素对象在各个结构之间共享，所以内存差值只包含结构本身的开销
+     */
+    private static Integer[] shuffledKeys(int n, Random random) {
+        Integer[] keys = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            keys[i] = i;
+        }
+        for (int i = n - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            Integer tmp = keys[i];
+            keys[i] = keys[j];
+            keys[j] = tmp;
+        }
+        return keys;
+    }
+
+    private static void runRedBlackTree(Integer[] keys) {
+        long before = usedMemory();
+        RedBlackTree<Integer> tree = new RedBlackTree<>();
+        long start = System.nanoTime();
+        for (Integer key : keys) {
+            tree.add(key);
+        }
+        long insert = System.nanoTime() - start;
+        long bytes = usedMemory() - before;
+
+        Random random = new Random(7);
+        start = System.nanoTime();
+        for (int i = 0; i < QUERIES; i++) {
+            if (!tree.contains(keys[random.nextInt(keys.length)])) throw new IllegalStateException("missing key");
+        }
+        long lookup = System.nanoTime() - start;
+
+        long[] sum = {0};
+        start = System.nanoTime();
+        tree.inOrderTraversal(e -> {
+            sum[0] += e;
+            return false;
+        });
+        long scan = System.nanoTime() - start;
+        report("RedBlackTree", keys.length, insert, lookup, scan, -1, bytes, tree.height());
+    }
+
+    private static void runBPlusTree(Integer[] keys, int fanout) {
+        long before = usedMemory();
+        BPlusTree<Integer> tree = new BPlusTree<>(fanout);
+        long start = System.nanoTime();
+        for (Integer key : keys) {
+            tree.add(key);
+        }
+        long insert = System.nanoTime() - start;
+        long bytes = usedMemory() - before;
+
+        Random random = new Random(7);
+        start = System.nanoTime();
+        for (int i = 0; i < QUERIES; i++) {
+            if (!tree.contains(keys[random.nextInt(keys.length)])) throw new IllegalStateException("missing key");
+        }
+        long lookup = System.nanoTime() - start;
+
+        long[] sum = {0};
+        start = System.nanoTime();
+        tree.inOrderTraversal(e -> {
+            sum[0] += e;
+            return false;
+        });
+        long scan = System.nanoTime() - start;
+
+        //范围扫描：每次从随机位置开始扫描RANGE_LENGTH个元素
+        int ranges = QUERIES / RANGE_LENGTH;
+        start = System.nanoTime();
+        for (int i = 0; i < ranges; i++) {
+            int from = random.nextInt(keys.length);
+            tree.rangeTraversal(from, from + RANGE_LENGTH, e -> {
+                sum[0] -= e;
+                return false;
+            });
+        }
+        long range = System.nanoTime() - start;
+        report("BPlusTree(" + fanout + ")", keys.length, insert, lookup, scan, (double) range / ranges, bytes, tree.height());
+    }
+
+    private static void report(String name, int n, long insert, long lookup, long scan, double range, long bytes, int height) {
+        System.out.printf("%-16s insert %7.1fns/op  lookup %7.1fns/op  scan %5.1fns/op  range(%d) %9s  %5.1f bytes/key  height=%d%n",
+                name, (double) insert / n, (double) lookup / QUERIES, (double) scan / n, RANGE_LENGTH,
+                range < 0 ? "-" : String.format("%.0fns", range), (double) bytes / n, height);
+    }
+
+    private static long usedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,241 @@
+package pers.fw;
+
+import pers.fw.data_structure.MpmcArrayQueue;
+import pers.fw.data_structure.heap.MultiQueue;
+import pers.fw.data_structure.tree.ConcurrentBinarySearchTree;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 并发数据结构的正确性：多个生产者、消费者同时操作后，每个生产的元素恰好被消费一次
+ */
+public class ConcurrentTest {
+    private static final int THREADS = 4;
+    /**
+     * 所有线程完成的最长时间，元素丢失或者线程卡死时超时失败而不是一直等待
+     */
+    private static final long TIMEOUT_MILLIS = 60000;
+
+    public static void main(String[] args) throws InterruptedException {
+        multiQueue();
+        mpmcArrayQueue();
+        concurrentBinarySearchTree();
+    }
+
+    /**
+     * 启动threads个线程同时执行task(线程序号)，等待全部结束；任一线程抛出异常或超时时失败
+     */
+    private static void runConcurrently(int threads, ThreadTask task) throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+        List<Throwable> failures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int id = t;
+            Thread worker = new Thread(() -> {
+                try {
+                    start.await();
+                    task.run(id);
+                } catch (Throwable e) {
+                    synchronized (failures) {
+                        failures.add(e);
+                    }
+                }
+            });
+            //超时后不等待卡住的线程退出
+            worker.setDaemon(true);
+            worker.start();
+            workers.add(worker);
+        }
+        start.countDown();
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        for (Thread worker : workers) {
+            worker.join(Math.max(1, deadline - System.currentTimeMillis()));
+            if (worker.isAlive()) throw new IllegalStateException("worker timed out");
+        }
+        if (!failures.isEmpty()) throw new IllegalStateException("worker failed", failures.get(0));
+    }
+
+    private interface ThreadTask {
+        void run(int id) throws Exception;
+    }
+
+    /**
+     * 每个元素被消费的次数都必须恰好为1
+     */
+    private static void checkExactlyOnce(int[] consumed, String name) {
+        for (int i = 0; i < consumed.length; i++) {
+            if (consumed[i] != 1) throw new IllegalStateException(name + ": element " + i + " consumed " + consumed[i] + " times");
+        }
+    }
+
+    /**
+     * THREADS个生产者各自入队不相交的一段元素，同时THREADS个消费者出队，直到全部元素都被消费
+     */
+    private static void multiQueue() throws InterruptedException {
+        int perProducer = 200000;
+        int total = THREADS * perProducer;
+        MultiQueue<Integer> queue = new MultiQueue<>(2 * THREADS);
+        AtomicInteger remaining = new AtomicInteger(total);
+        int[][] consumedBy = new int[THREADS][total];
+        runConcurrently(2 * THREADS, id -> {
+            if (id < THREADS) {
+                for (int i = id * perProducer; i < (id + 1) * perProducer; i++) {
+                    queue.offer(i);
+                }
+                return;
+            }
+            int[] consumed = consumedBy[id - THREADS];
+            while (remaining.get() > 0) {
+                Integer e = queue.poll();
+                if (e == null) continue;
+                consumed[e]++;
+                remaining.decrementAndGet();
+            }
+        });
+        int[] consumed = new int[total];
+        for (int[] counts : consumedBy) {
+            for (int i = 0; i < total; i++) {
+                consumed[i] += counts[i];
+            }
+        }
+        checkExactlyOnce(consumed, "MultiQueue");
+        if (queue.poll() != null || !queue.isEmpty()) throw new IllegalStateException("MultiQueue not empty");
+        System.out.println("MultiQueue ok");
+    }
+
+    /**
+     * 容量很小的环形数组（频繁写满、回绕）：生产者交替单个入队和批量入队，消费者交替单个出队和批量取出
+     */
+    private static void mpmcArrayQueue() throws InterruptedException {
+        int perProducer = 500000;
+        int total = THREADS * perProducer;
+        MpmcArrayQueue<Integer> queue = new MpmcArrayQueue<>(64);
+        AtomicInteger remaining = new AtomicInteger(total);
+        int[][] consumedBy = new int[THREADS][total];
+        runConcurrently(2 * THREADS, id -> {
+            if (id < THREADS) {
+                Integer[] batch = new Integer[5];
+                int i = id * perProducer;
+                int end = (id + 1) * perProducer;
+                while (i < end) {
+                    if ((i & 1) == 0) {
+                        if (queue.offer(i)) i++;
+                        else Thread.yield();
+                        continue;
+                    }
+                    int length = Math.min(batch.length, end - i);
+                    for (int j = 0; j < length; j++) {
+                        batch[j] = i + j;
+                    }
+                    for (int offset = 0; offset < length; ) {
+                        int n = queue.offer(batch, offset, length - offset);
+                        if (n == 0) Thread.yield();
+                        offset += n;
+                    }
+                    i += length;
+                }
+                return;
+            }
+            int[] consumed = consumedBy[id - THREADS];
+            List<Integer> drained = new ArrayList<>();
+            for (int round = 0; remaining.get() > 0; round++) {
+                drained.clear();
+                if ((round & 1) == 0) {
+                    Integer e = queue.poll();
+                    if (e != null) drained.add(e);
+                } else {
+                    queue.drainTo(drained, 7);
+                }
+                if (drained.isEmpty()) {
+                    Thread.yield();
+                    continue;
+                }
+                for (Integer e : drained) {
+                    consumed[e]++;
+                }
+                remaining.addAndGet(-drained.size());
+            }
+        });
+        int[] consumed = new int[total];
+        for (int[] counts : consumedBy) {
+            for (int i = 0; i < total; i++) {
+                consumed[i] += counts[i];
+            }
+        }
+        checkExactlyOnce(consumed, "MpmcArrayQueue");
+        if (queue.poll() != null || !queue.isEmpty()) throw new IllegalStateException("MpmcArrayQueue not empty");
+        System.out.println("MpmcArrayQueue ok");
+    }
+
+    /**
+     * 元素按序号对THREADS + 1取模分组：前THREADS组各由一个线程随机增删（每个元素只有一个线程修改，返回值可以与线程自己的TreeSet对照），
+     * 最后一组插入后不再修改，另有读线程持续检查它们一直存在、从未插入的元素一直不存在
+     * 随机顺序插入的树中大量节点有两个子节点，删除它们只做逻辑删除、作为路由节点保留，其他线程同时在其子树中增删、顺带断开路由节点
+     */
+    private static void concurrentBinarySearchTree() throws InterruptedException {
+        int range = 20000;
+        int groups = THREADS + 1;
+        ConcurrentBinarySearchTree<Integer> tree = new ConcurrentBinarySearchTree<>();
+        List<Integer> keys = new ArrayList<>();
+        for (int i = 0; i < range; i++) {
+            keys.add(i);
+        }
+        Collections.shuffle(keys, new Random(42));
+        List<TreeSet<Integer>> expected = new ArrayList<>();
+        for (int t = 0; t < groups; t++) {
+            expected.add(new TreeSet<>());
+        }
+        for (Integer key : keys) {
+            tree.add(key);
+            expected.get(key % groups).add(key);
+        }
+        AtomicInteger writers = new AtomicInteger(THREADS);
+        runConcurrently(THREADS + 1, id -> {
+            if (id == THREADS) {
+                //读线程：稳定的元素始终存在，范围外的元素始终不存在
+                Random random = new Random(id);
+                while (writers.get() > 0) {
+                    int key = random.nextInt(range / groups) * groups + THREADS;
+                    if (!tree.contains(key)) throw new IllegalStateException("stable element " + key + " missing");
+                    if (tree.contains(range + random.nextInt(range))) throw new IllegalStateException("absent element found");
+                }
+                return;
+            }
+            try {
+                Random random = new Random(id);
+                TreeSet<Integer> own = expected.get(id);
+                for (int i = 0; i < 300000; i++) {
+                    int key = random.nextInt(range / groups) * groups + id;
+                    int op = random.nextInt(3);
+                    if (op == 0) {
+                        if (tree.add(key) != own.add(key)) throw new IllegalStateException("add(" + key + ") result mismatch");
+                    } else if (op == 1) {
+                        if (tree.remove(key) != own.remove(key)) throw new IllegalStateException("remove(" + key + ") result mismatch");
+                    } else {
+                        if (tree.contains(key) != own.contains(key)) throw new IllegalStateException("contains(" + key + ") mismatch");
+                    }
+                }
+            } finally {
+                writers.decrementAndGet();
+            }
+        });
+        TreeSet<Integer> all = new TreeSet<>();
+        for (TreeSet<Integer> group : expected) {
+            all.addAll(group);
+        }
+        List<Integer> traversed = new ArrayList<>();
+        tree.inOrderTraversal(e -> !traversed.add(e));
+        if (!traversed.equals(new ArrayList<>(all))) throw new IllegalStateException("ConcurrentBinarySearchTree traversal mismatch");
+        if (tree.size() != all.size()) throw new IllegalStateException("ConcurrentBinarySearchTree size " + tree.size() + ", expected " + all.size());
+        for (int key = 0; key < range; key++) {
+            if (tree.contains(key) != all.contains(key)) throw new IllegalStateException("contains(" + key + ") mismatch after run");
+        }
+        System.out.println("ConcurrentBinarySearchTree ok, size=" + tree.size());
+    }
+}
@@ -0,0 +1,96 @@
+package pers.fw;
+
+import pers.fw.data_structure.tree.ConcurrentBinarySearchTree;
+import pers.fw.data_structure.tree.RedBlackTree;
+
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * 读多写少（默认5%写）负载下有序集合的吞吐量随线程数的变化
+ * 参数：每个线程的操作数量（默认1000000）、写操作百分比（默认5）
+ */
+public class ConcurrentTreeBenchmark {
+    private static final int KEY_RANGE = 1 << 20;
+
+    public static void main(String[] args) throws InterruptedException {
+        int opsPerThread = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+        int writePercent = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        int maxThreads = Math.max(4, Runtime.getRuntime().availableProcessors());
+        for (int threads = 1; threads <= maxThreads; threads <<= 1) {
+            ConcurrentBinarySearchTree<Integer> concurrentTree = new ConcurrentBinarySearchTree<>();
+            run("ConcurrentBST", threads, opsPerThread, writePercent,
+                    concurrentTree::contains, concurrentTree::add, concurrentTree::remove);
+            RedBlackTree<Integer> tree = new RedBlackTree<>();
+            ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+            run("RWLock RedBlackTree", threads, opsPerThread, writePercent, e -> {
+                lock.readLock().lock();
+                try {
+                    return tree.contains(e);
+                } finally {
+                    lock.readLock().unlock();
+                }
+            }, e -> {
+                lock.writeLock().lock();
+                try {
+                    tree.add(e);
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            }, e -> {
+                lock.writeLock().lock();
+                try {
+                    tree.remove(e);
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            });
+            ConcurrentSkipListSet<Integer> skipList = new ConcurrentSkipListSet<>();
+            run("ConcurrentSkipListSet", threads, opsPerThread, writePercent, skipList::contains, skipList::add, skipList::remove);
+        }
+    }
+
+    private static void run(String name, int threads, int opsPerThread, int writePercent,
+                            Predicate<Integer> contains, Consumer<Integer> add, Consumer<Integer> remove) throws InterruptedException {
+        //随机预填充一半的键
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < KEY_RANGE / 2; i++) {
+            add.accept(random.nextInt(KEY_RANGE));
+        }
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            workers[t] = new Thread(() -> {
+                ThreadLocalRandom r = ThreadLocalRandom.current();
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < opsPerThread; i++) {
+                    Integer key = r.nextInt(KEY_RANGE);
+                    int op = r.nextInt(100);
+                    if (op >= writePercent) {
+                        contains.test(key);
+                    } else if ((op & 1) == 0) {
+                        add.accept(key);
+                    } else {
+                        remove.accept(key);
+                    }
+                }
+            });
+            workers[t].start();
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        long cost = System.nanoTime() - begin;
+        System.out.printf("%-22s threads=%-3d %8.0f ops/ms%n", name, threads, (long) threads * opsPerThread / (cost / 1e6));
+    }
+}
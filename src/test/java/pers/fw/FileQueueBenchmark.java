@@ -0,0 +1,109 @@
+package pers.fw;
+
+import pers.fw.data_structure.FileQueue;
+import pers.fw.data_structure.interf.KeyCodec;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * 持久化队列的吞吐量与内存占用：先积压n个元素（逐个入队或按批入队），重新打开（扫描恢复），再全部出队并校验顺序
+ * 参数：元素数量（默认10000000），刷盘策略（默认NEVER），批大小（默认1，表示逐个入队）
+ * 积压量只受磁盘限制，堆占用与积压量无关，例如：java -Xmx64m pers.fw.FileQueueBenchmark 100000000 NEVER 1000
+ */
+public class FileQueueBenchmark {
+    private static final int PAYLOAD_SIZE = 100;
+
+    public static void main(String[] args) throws IOException {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 10000000;
+        FileQueue.FsyncPolicy policy = args.length > 1 ? FileQueue.FsyncPolicy.valueOf(args[1]) : FileQueue.FsyncPolicy.NEVER;
+        int batch = args.length > 2 ? Integer.parseInt(args[2]) : 1;
+        Path dir = Files.createTempDirectory("file-queue");
+        try {
+            run(dir, n, policy, batch);
+        } finally {
+            try (Stream<Path> files = Files.list(dir)) {
+                for (Path file : (Iterable<Path>) files::iterator) {
+                    Files.delete(file);
+                }
+            }
+            Files.delete(dir);
+        }
+    }
+
+    private static void run(Path dir, int n, FileQueue.FsyncPolicy policy, int batch) throws IOException {
+        String padding = new String(new char[PAYLOAD_SIZE - 12]).replace('\0', 'x');
+        long start = System.nanoTime();
+        try (FileQueue<String> queue = new FileQueue<>(dir, KeyCodec.STRING, 64 << 20, policy)) {
+            List<String> buffer = new ArrayList<>(batch);
+            for (int i = 0; i < n; i++) {
+                String e = element(i, padding);
+                if (batch == 1) {
+                    queue.offer(e);
+                    continue;
+                }
+                buffer.add(e);
+                if (buffer.size() == batch) {
+                    queue.offerAll(buffer);
+                    buffer.clear();
+                }
+            }
+            queue.offerAll(buffer);
+        }
+        long offer = System.nanoTime() - start;
+        long bytes = directorySize(dir);
+
+        start = System.nanoTime();
+        try (FileQueue<String> queue = new FileQueue<>(dir, KeyCodec.STRING, 64 << 20, policy)) {
+            long open = System.nanoTime() - start;
+            if (queue.size() != n) throw new IllegalStateException("size " + queue.size() + " after reopen, expected " + n);
+            start = System.nanoTime();
+            for (int i = 0; i < n; i++) {
+                String e = queue.poll();
+                if (e == null || Integer.parseInt(e.substring(0, 8)) != i) throw new IllegalStateException("unexpected element at " + i + ": " + e);
+            }
+            long poll = System.nanoTime() - start;
+            if (queue.poll() != null) throw new IllegalStateException("queue not empty");
+            System.out.printf("n=%d %s batch=%d  offer %6.1fns/op  reopen %6.1fms  poll %6.1fns/op  backlog %dMB  heap %dMB  remaining files %d%n",
+                    n, policy, batch, (double) offer / n, open / 1e6, (double) poll / n, bytes >> 20, usedMemory() >> 20,
+                    fileCount(dir));
+        }
+    }
+
+    /**
+     * 8位十进制序号 + 填充，避免String.format的开销掩盖队列本身的耗时
+     */
+    private static String element(int i, String padding) {
+        char[] digits = new char[8];
+        for (int j = 7, k = i; j >= 0; j--, k /= 10) {
+            digits[j] = (char) ('0' + k % 10);
+        }
+        return new String(digits) + padding;
+    }
+
+    private static long directorySize(Path dir) throws IOException {
+        long size = 0;
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                size += Files.size(file);
+            }
+        }
+        return size;
+    }
+
+    private static long fileCount(Path dir) throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.count();
+        }
+    }
+
+    private static long usedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
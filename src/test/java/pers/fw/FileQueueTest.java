@@ -0,0 +1,306 @@
+package pers.fw;
+
+import pers.fw.data_structure.FileQueue;
+import pers.fw.data_structure.interf.KeyCodec;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * 持久化队列的正确性：与ArrayDeque对照的随机操作（频繁重新打开），段恰好写满时的滚动，以及崩溃恢复
+ * 段文件很小（见SEGMENT_SIZE），随机操作中几乎每隔几条记录就会滚动一次
+ */
+public class FileQueueTest {
+    private static final int SEGMENT_SIZE = 64;
+    /**
+     * 记录头：4字节长度 + 4字节CRC32
+     */
+    private static final int HEADER_SIZE = 8;
+
+    public static void main(String[] args) throws IOException {
+        random();
+        exactFit();
+        tornTail();
+        staleSegment();
+        closed();
+        segmentSizeMismatch();
+    }
+
+    private static FileQueue<String> open(Path dir, FileQueue.FsyncPolicy policy) {
+        return new FileQueue<>(dir, KeyCodec.STRING, SEGMENT_SIZE, policy);
+    }
+
+    /**
+     * 编码后恰好占recordSize字节（含记录头）的元素，STRING编码为4字节长度 + UTF-8字节
+     */
+    private static String element(char c, int recordSize) {
+        char[] chars = new char[recordSize - HEADER_SIZE - Integer.BYTES];
+        Arrays.fill(chars, c);
+        return new String(chars);
+    }
+
+    private static void random() throws IOException {
+        Path dir = Files.createTempDirectory("file-queue");
+        try {
+            Random random = new Random(42);
+            ArrayDeque<String> expected = new ArrayDeque<>();
+            FileQueue<String> queue = open(dir, FileQueue.FsyncPolicy.NEVER);
+            for (int i = 0; i < 100000; i++) {
+                int op = random.nextInt(10);
+                if (op < 4) {
+                    //记录大小在[13, 56]之间，覆盖各种段内剩余空间
+                    String e = element((char) ('a' + i % 26), 13 + random.nextInt(44));
+                    queue.offer(e);
+                    expected.offer(e);
+                } else if (op < 5) {
+                    List<String> batch = new ArrayList<>();
+                    for (int j = random.nextInt(10); j > 0; j--) {
+                        batch.add(element('B', 13 + random.nextInt(44)));
+                    }
+                    if (queue.offerAll(batch) != batch.size()) throw new IllegalStateException("offerAll count");
+                    expected.addAll(batch);
+                } else if (op < 9) {
+                    if (!Objects.equals(queue.poll(), expected.poll())) throw new IllegalStateException("poll mismatch at " + i);
+                } else {
+                    if (!Objects.equals(queue.peek(), expected.peek())) throw new IllegalStateException("peek mismatch at " + i);
+                }
+                if (queue.size() != expected.size()) throw new IllegalStateException("size mismatch at " + i);
+                if (i % 5000 == 0) {
+                    queue.close();
+                    queue = open(dir, i % 10000 == 0 ? FileQueue.FsyncPolicy.ALWAYS : FileQueue.FsyncPolicy.PERIODIC);
+                    if (queue.size() != expected.size()) throw new IllegalStateException("size mismatch after reopen at " + i);
+                }
+            }
+            while (!expected.isEmpty()) {
+                if (!expected.poll().equals(queue.poll())) throw new IllegalStateException("drain mismatch");
+            }
+            if (queue.poll() != null || !queue.isEmpty()) throw new IllegalStateException("queue not empty");
+            queue.close();
+            //全部读完后只剩当前的读写段
+            if (segments(dir).size() != 1) throw new IllegalStateException("consumed segments not deleted: " + segments(dir));
+            queue = open(dir, FileQueue.FsyncPolicy.NEVER);
+            if (queue.size() != 0) throw new IllegalStateException("drained queue not empty after reopen");
+            queue.close();
+            System.out.println("random ok");
+        } finally {
+            delete(dir);
+        }
+    }
+
+    /**
+     * 记录恰好填满段（没有位置写结束标记）、剩余空间放得下结束标记但放不下记录头、剩余空间恰好是一个记录头
+     */
+    private static void exactFit() throws IOException {
+        int[][] layouts = {{32, 32}, {30, 30}, {28, 28}, {56}};
+        for (int[] layout : layouts) {
+            Path dir = Files.createTempDirectory("file-queue");
+            try {
+                List<String> expected = new ArrayList<>();
+                FileQueue<String> queue = open(dir, FileQueue.FsyncPolicy.NEVER);
+                for (int round = 0; round < 3; round++) {
+                    for (int recordSize : layout) {
+                        String e = element((char) ('a' + expected.size()), recordSize);
+                        queue.offer(e);
+                        expected.add(e);
+                    }
+                }
+                if (segments(dir).size() != 3) throw new IllegalStateException("expected one segment per round: " + Arrays.toString(layout));
+                queue.close();
+                queue = open(dir, FileQueue.FsyncPolicy.NEVER);
+                if (queue.size() != expected.size()) throw new IllegalStateException("size mismatch after reopen: " + Arrays.toString(layout));
+                //读到一半重新打开，读位置恰好停在段尾
+                for (int i = 0; i < layout.length; i++) {
+                    if (!expected.get(i).equals(queue.poll())) throw new IllegalStateException("poll mismatch: " + Arrays.toString(layout));
+                }
+                queue.close();
+                queue = open(dir, FileQueue.FsyncPolicy.NEVER);
+                for (int i = layout.length; i < expected.size(); i++) {
+                    if (!expected.get(i).equals(queue.poll())) throw new IllegalStateException("poll mismatch after reopen: " + Arrays.toString(layout));
+                }
+                if (queue.poll() != null) throw new IllegalStateException("queue not empty");
+                queue.close();
+            } finally {
+                delete(dir);
+            }
+        }
+        System.out.println("exact fit ok");
+    }
+
+    /**
+     * 最后一条记录写了一半（CRC不匹配）：重新打开时截掉，之后的写入覆盖这条记录
+     */
+    private static void tornTail() throws IOException {
+        Path dir = Files.createTempDirectory("file-queue");
+        try {
+            FileQueue<String> queue = open(dir, FileQueue.FsyncPolicy.NEVER);
+            List<String> expected = new ArrayList<>();
+            for (int i = 0; i < 10; i++) {
+                String e = element((char) ('a' + i), 20);
+                queue.offer(e);
+                expected.add(e);
+            }
+            queue.close();
+            List<Path> segments = segments(dir);
+            Path last = segments.get(segments.size() - 1);
+            try (FileChannel channel = FileChannel.open(last, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, SEGMENT_SIZE);
+                int position = 0;
+                int lastRecord = -1;
+                while (position + HEADER_SIZE <= SEGMENT_SIZE && buffer.getInt(position) > 0) {
+                    lastRecord = position;
+                    position += HEADER_SIZE + buffer.getInt(position);
+                }
+                //翻转最后一条记录的一个负载字节
+                int target = lastRecord + HEADER_SIZE + Integer.BYTES;
+                buffer.put(target, (byte) (buffer.get(target) ^ 1));
+                buffer.force();
+            }
+            expected.remove(expected.size() - 1);
+
+            queue = open(dir, FileQueue.FsyncPolicy.NEVER);
+            if (queue.size() != expected.size()) throw new IllegalStateException("torn record not truncated, size " + queue.size());
+            String tail = element('z', 16);
+            queue.offer(tail);
+            expected.add(tail);
+            queue.close();
+            queue = open(dir, FileQueue.FsyncPolicy.NEVER);
+            for (String e : expected) {
+                if (!e.equals(queue.poll())) throw new IllegalStateException("poll mismatch after truncation");
+            }
+            if (queue.poll() != null) throw new IllegalStateException("queue not empty");
+            queue.close();
+            System.out.println("torn tail ok");
+        } finally {
+            delete(dir);
+        }
+    }
+
+    /**
+     * checkpoint已越过某个段、但删除该段文件前崩溃：重新打开时删除残留的段，且不计入元素数量
+     */
+    private static void staleSegment() throws IOException {
+        Path dir = Files.createTempDirectory("file-queue");
+        try {
+            FileQueue<String> queue = open(dir, FileQueue.FsyncPolicy.NEVER);
+            List<String> expected = new ArrayList<>();
+            for (int i = 0; i < 12; i++) {
+                String e = element((char) ('a' + i), 32);
+                queue.offer(e);
+                expected.add(e);
+            }
+            Path first = segments(dir).get(0);
+            byte[] consumed = Files.readAllBytes(first);
+            //读完前两个段，读位置进入第三个段
+            for (int i = 0; i < 5; i++) {
+                if (!expected.remove(0).equals(queue.poll())) throw new IllegalStateException("poll mismatch");
+            }
+            queue.close();
+            if (Files.exists(first)) throw new IllegalStateException("consumed segment not deleted");
+            Files.write(first, consumed);
+
+            queue = open(dir, FileQueue.FsyncPolicy.NEVER);
+            if (Files.exists(first)) throw new IllegalStateException("stale segment not deleted on open");
+            if (queue.size() != expected.size()) throw new IllegalStateException("stale segment counted, size " + queue.size());
+            for (String e : expected) {
+                if (!e.equals(queue.poll())) throw new IllegalStateException("poll mismatch after recovery");
+            }
+            queue.close();
+            System.out.println("stale segment ok");
+        } finally {
+            delete(dir);
+        }
+    }
+
+    private static void closed() throws IOException {
+        Path dir = Files.createTempDirectory("file-queue");
+        try {
+            FileQueue<String> queue = open(dir, FileQueue.FsyncPolicy.NEVER);
+            queue.offer("a");
+            try {
+                open(dir, FileQueue.FsyncPolicy.NEVER);
+                throw new IllegalStateException("directory lock not held");
+            } catch (RuntimeException e) {
+                if (!e.getMessage().startsWith("queue directory is in use")) throw e;
+            }
+            queue.close();
+            queue.close();
+            for (Runnable operation : Arrays.<Runnable>asList(() -> queue.offer("b"), queue::poll, queue::peek)) {
+                try {
+                    operation.run();
+                    throw new RuntimeException("operation after close did not fail");
+                } catch (IllegalStateException expected) {
+                    //关闭后拒绝读写
+                }
+            }
+            FileQueue<String> reopened = open(dir, FileQueue.FsyncPolicy.NEVER);
+            if (reopened.size() != 1 || !"a".equals(reopened.poll())) throw new IllegalStateException("write after close leaked");
+            reopened.close();
+            System.out.println("closed ok");
+        } finally {
+            delete(dir);
+        }
+    }
+
+    /**
+     * 用与创建时不同的段大小重新打开：拒绝打开，且不改动目录中的数据，之后仍可用原来的段大小打开
+     */
+    private static void segmentSizeMismatch() throws IOException {
+        Path dir = Files.createTempDirectory("file-queue");
+        try {
+            FileQueue<String> queue = open(dir, FileQueue.FsyncPolicy.NEVER);
+            List<String> expected = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                String e = element((char) ('a' + i), 20);
+                queue.offer(e);
+                expected.add(e);
+            }
+            queue.close();
+            for (int segmentSize : new int[]{SEGMENT_SIZE / 2, SEGMENT_SIZE * 2}) {
+                try {
+                    new FileQueue<>(dir, KeyCodec.STRING, segmentSize, FileQueue.FsyncPolicy.NEVER).close();
+                    throw new IllegalStateException("segmentSize " + segmentSize + " accepted");
+                } catch (RuntimeException e) {
+                    if (!e.getMessage().startsWith("segmentSize must be " + SEGMENT_SIZE)) throw e;
+                }
+            }
+            //失败的打开释放了目录锁
+            queue = open(dir, FileQueue.FsyncPolicy.NEVER);
+            if (queue.size() != expected.size()) throw new IllegalStateException("records lost after rejected open, size " + queue.size());
+            for (String e : expected) {
+                if (!e.equals(queue.poll())) throw new IllegalStateException("poll mismatch after rejected open");
+            }
+            queue.close();
+            System.out.println("segment size ok");
+        } finally {
+            delete(dir);
+        }
+    }
+
+    private static List<Path> segments(Path dir) throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(".seg")).sorted().collect(Collectors.toList());
+        }
+    }
+
+    private static void delete(Path dir) throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(dir);
+    }
+}
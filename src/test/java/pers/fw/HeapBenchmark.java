@@ -0,0 +1,59 @@
+package pers.fw;
+
+import pers.fw.data_structure.heap.DaryMinHeap;
+import pers.fw.data_structure.heap.Heap;
+import pers.fw.data_structure.heap.MinHeap;
+
+import java.util.Random;
+import java.util.function.Supplier;
+
+/**
+ * 比较二叉堆与不同叉数的d叉堆在入堆为主、出堆为主两种负载下的吞吐量
+ * 参数：元素数量（默认1000000）
+ */
+public class HeapBenchmark {
+    private static final int[] ARITIES = {2, 4, 8, 16};
+
+    public static void main(String[] args) {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+        Random random = new Random(42);
+        Integer[] data = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            data[i] = random.nextInt();
+        }
+        for (int round = 0; round < 3; round++) {
+            System.out.println("round " + round);
+            run("MinHeap", () -> new MinHeap<>(), data);
+            for (int arity : ARITIES) {
+                run("DaryMinHeap(" + arity + ")", () -> new DaryMinHeap<>(arity), data);
+            }
+        }
+    }
+
+    private static void run(String name, Supplier<Heap<Integer>> factory, Integer[] data) {
+        //入堆为主：每4次入堆出堆1次
+        Heap<Integer> heap = factory.get();
+        long start = System.nanoTime();
+        for (int i = 0; i < data.length; i++) {
+            heap.add(data[i]);
+            if ((i & 3) == 3) heap.pop();
+        }
+        long pushHeavy = System.nanoTime() - start;
+
+        //出堆为主：全部入堆后全部出堆，只统计出堆耗时
+        heap = factory.get();
+        for (Integer e : data) {
+            heap.add(e);
+        }
+        start = System.nanoTime();
+        int prev = Integer.MIN_VALUE;
+        while (!heap.isEmpty()) {
+            int e = heap.pop();
+            if (e < prev) throw new IllegalStateException(name + " pop order broken");
+            prev = e;
+        }
+        long popHeavy = System.nanoTime() - start;
+        System.out.printf("%-16s push-heavy %7.1fns/op  pop-heavy %7.1fns/op%n",
+                name, (double) pushHeavy / data.length, (double) popHeavy / data.length);
+    }
+}
@@ -1,11 +1,41 @@
 package pers.fw;
 
+import pers.fw.data_structure.heap.BlockingHeap;
+import pers.fw.data_structure.heap.DoubleMinHeap;
+import pers.fw.data_structure.SnapshotIO;
 import pers.fw.data_structure.heap.Heap;
+import pers.fw.data_structure.heap.HeapSnapshot;
+import pers.fw.data_structure.heap.IndexedHeap;
+import pers.fw.data_structure.heap.IndexedMinHeap;
+import pers.fw.data_structure.heap.IntMinHeap;
+import pers.fw.data_structure.heap.LongMaxHeap;
 import pers.fw.data_structure.heap.MaxHeap;
 import pers.fw.data_structure.heap.MinHeap;
+import pers.fw.data_structure.interf.KeyCodec;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
 public class HeapTest {
-    public static void main(String[] args) {
+    private static boolean forgedInitialized;
+
+    /**
+     * 快照中伪造的类名：不是堆，静态初始化会被记录下来
+     */
+    static class Forged {
+        static {
+            forgedInitialized = true;
+        }
+
+        public Forged(int capacity) {
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
         Heap<Integer> heap = new MaxHeap(new Integer[]{1, 2, 3, 4, 5, 6, 7, 8, 9, 10});
         while (!heap.isEmpty()) {
             System.out.println(heap.pop());
@@ -14,5 +44,112 @@ public class HeapTest {
         while (!heap.isEmpty()) {
             System.out.println(heap.pop());
         }
+        IndexedHeap<Integer> indexedHeap = new IndexedMinHeap<>();
+        for (int i = 0; i < 10; i++) {
+            indexedHeap.add(i, 100 - i);
+        }
+        indexedHeap.decreaseKey(3, 1);
+        indexedHeap.increaseKey(9, 200);
+        indexedHeap.remove(5);
+        while (!indexedHeap.isEmpty()) {
+            int index = indexedHeap.topIndex();
+            System.out.println(index + "=" + indexedHeap.pop());
+        }
+        stalePayload();
+        drainToFailure();
+        snapshot();
+    }
+
+    /**
+     * 快照恢复后出堆顺序不变；类名不是堆的快照被拒绝，且该类没有被初始化
+     */
+    private static void snapshot() throws IOException {
+        Path path = Files.createTempFile("heap", ".snapshot");
+        try {
+            Heap<Integer> heap = new MinHeap<>();
+            for (int i = 0; i < 100; i++) {
+                heap.add((i * 37) % 100);
+            }
+            HeapSnapshot.write(heap, KeyCodec.INT, path);
+            Heap<Integer> restored = HeapSnapshot.read(path, KeyCodec.INT);
+            for (int i = 0; i < 100; i++) {
+                if (restored.pop() != i) throw new IllegalStateException("restored heap order mismatch at " + i);
+            }
+
+            try (SnapshotIO.Writer writer = new SnapshotIO.Writer(path)) {
+                writer.writeInt(0x48454150);
+                writer.writeInt(1);
+                writer.writeString(Forged.class.getName());
+                writer.writeInt(2);
+                writer.writeInt(0);
+                writer.commit();
+            }
+            try {
+                HeapSnapshot.read(path, KeyCodec.INT);
+                throw new IllegalStateException("forged heap class accepted");
+            } catch (IOException e) {
+                if (!e.getMessage().endsWith("is not a heap")) throw e;
+            }
+            if (forgedInitialized) throw new IllegalStateException("forged class initialized");
+            System.out.println("snapshot ok");
+        } finally {
+            Files.deleteIfExists(path);
+        }
+    }
+
+    /**
+     * drainTo中collection.add抛出异常时，未放入集合的元素必须留在队列中，元素数量保持准确
+     */
+    private static void drainToFailure() {
+        BlockingHeap<Integer> queue = new BlockingHeap<>(new MinHeap<Integer>());
+        for (int i = 0; i < 3; i++) {
+            queue.offer(i);
+        }
+        List<Integer> drained = new ArrayList<Integer>() {
+            @Override
+            public boolean add(Integer e) {
+                if (e == 1) throw new IllegalArgumentException("rejected " + e);
+                return super.add(e);
+            }
+        };
+        try {
+            queue.drainTo(drained);
+            throw new IllegalStateException("drainTo did not propagate the exception");
+        } catch (IllegalArgumentException expected) {
+            //元素1被拒绝
+        }
+        if (!drained.equals(Collections.singletonList(0)) || queue.size() != 2) {
+            throw new IllegalStateException("drainTo lost elements: drained=" + drained + " size=" + queue.size());
+        }
+        if (queue.poll() != 1 || queue.poll() != 2 || queue.poll() != null || queue.size() != 0) {
+            throw new IllegalStateException("queue inconsistent after failed drainTo");
+        }
+        queue.offer(7);
+        if (queue.poll() != 7) throw new IllegalStateException("queue broken after failed drainTo");
+        System.out.println("drainTo ok");
+    }
+
+    /**
+     * 带附加值添加、弹出后再不带附加值添加，新元素的附加值应为0，不能沿用数组中残留的旧值
+     */
+    private static void stalePayload() {
+        LongMaxHeap longHeap = new LongMaxHeap();
+        longHeap.add(1L, 100L);
+        longHeap.removeTop();
+        longHeap.add(2L);
+        IntMinHeap intHeap = new IntMinHeap();
+        intHeap.add(1, 100L);
+        intHeap.clear();
+        intHeap.add(2);
+        DoubleMinHeap doubleHeap = new DoubleMinHeap();
+        doubleHeap.add(1.0, 100L);
+        doubleHeap.add(3.0, 300L);
+        doubleHeap.pop();
+        doubleHeap.pop();
+        doubleHeap.add(2.0);
+        if (longHeap.topPayload() != 0 || intHeap.topPayload() != 0 || doubleHeap.topPayload() != 0) {
+            throw new IllegalStateException("stale payload");
+        }
+        System.out.println("payload ok");
     }
 }
@@ -0,0 +1,142 @@
+package pers.fw;
+
+import pers.fw.data_structure.heap.BlockingHeap;
+import pers.fw.data_structure.heap.MinHeap;
+import pers.fw.data_structure.heap.MultiQueue;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * 多线程优先队列吞吐量
+ * 1.生产者-消费者：P个生产者并发入队，1个消费者持续出队，统计全部元素出队所需时间
+ * 2.混合负载：T个线程各自交替入队、出队，比较BlockingHeap与MultiQueue的吞吐量，以及MultiQueue的平均排名误差
+ * 参数：每个生产者/线程的操作数量（默认1000000）
+ */
+public class PriorityQueueBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int perProducer = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+        int maxProducers = Runtime.getRuntime().availableProcessors();
+        for (int producers = 1; producers <= maxProducers; producers <<= 1) {
+            final MinHeap<Integer> globalHeap = new MinHeap<>();
+            run("synchronized MinHeap", producers, perProducer, e -> {
+                synchronized (globalHeap) {
+                    globalHeap.add(e);
+                    globalHeap.notifyAll();
+                }
+            }, () -> {
+                synchronized (globalHeap) {
+                    while (globalHeap.isEmpty()) globalHeap.wait();
+                    return globalHeap.pop();
+                }
+            });
+            final PriorityBlockingQueue<Integer> jdk = new PriorityBlockingQueue<>();
+            run("PriorityBlockingQueue", producers, perProducer, jdk::offer, jdk::take);
+            final BlockingHeap<Integer> blockingHeap = new BlockingHeap<>(new MinHeap<Integer>());
+            run("BlockingHeap", producers, perProducer, blockingHeap::offer, blockingHeap::take);
+        }
+
+        int maxThreads = Math.max(4, maxProducers);
+        for (int threads = 1; threads <= maxThreads; threads <<= 1) {
+            BlockingHeap<Integer> blockingHeap = new BlockingHeap<>(new MinHeap<Integer>());
+            mixed("BlockingHeap", threads, perProducer, blockingHeap::offer, blockingHeap::poll);
+            MultiQueue<Integer> multiQueue = new MultiQueue<>(threads);
+            mixed("MultiQueue(c=2)", threads, perProducer, multiQueue::offer, multiQueue::poll);
+        }
+        for (int c = 1; c <= 8; c <<= 1) {
+            System.out.printf("MultiQueue(threads=%d, c=%d) mean rank error %.2f%n",
+                    maxThreads, c, meanRankError(new MultiQueue<>(maxThreads, c, false), 100000));
+        }
+    }
+
+    /**
+     * 每个线程预先放入1000个元素，之后每次操作随机选择入队或出队
+     */
+    private static void mixed(String name, int threads, int opsPerThread, Consumer<Integer> offer, Supplier<Integer> poll) throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            workers[t] = new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < 1000; i++) {
+                    offer.accept(random.nextInt());
+                }
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < opsPerThread; i++) {
+                    if (random.nextBoolean()) {
+                        offer.accept(random.nextInt());
+                    } else {
+                        poll.get();
+                    }
+                }
+            });
+            workers[t].start();
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        long cost = System.nanoTime() - begin;
+        System.out.printf("%-22s threads=%-3d %8.0f ops/ms%n", name, threads, (long) threads * opsPerThread / (cost / 1e6));
+    }
+
+    /**
+     * 单线程下先放入n个元素，再交替出队、入队，统计每次出队元素的排名误差的平均值
+     */
+    private static double meanRankError(MultiQueue<Integer> queue, int n) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < n; i++) {
+            queue.offer(random.nextInt());
+        }
+        long total = 0;
+        int samples = 10000;
+        for (int i = 0; i < samples; i++) {
+            total += queue.rankError(queue.poll());
+            queue.offer(random.nextInt());
+        }
+        return (double) total / samples;
+    }
+
+    /**
+     * @param take 阻塞出队
+     */
+    private static void run(String name, int producers, int perProducer, Consumer<Integer> offer, Callable<Integer> take) throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] threads = new Thread[producers];
+        for (int p = 0; p < producers; p++) {
+            threads[p] = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < perProducer; i++) {
+                    offer.accept(random.nextInt());
+                }
+            });
+            threads[p].start();
+        }
+        long total = (long) producers * perProducer;
+        long begin = System.nanoTime();
+        start.countDown();
+        for (long i = 0; i < total; i++) {
+            take.call();
+        }
+        long cost = System.nanoTime() - begin;
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        System.out.printf("%-22s producers=%-3d %8.0f ops/ms%n", name, producers, total / (cost / 1e6));
+    }
+}
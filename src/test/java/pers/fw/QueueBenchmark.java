@@ -0,0 +1,103 @@
+package pers.fw;
+
+import pers.fw.data_structure.MpmcArrayQueue;
+import pers.fw.data_structure.Queue;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * 有界队列在不同竞争模式下的吞吐量：1P1C、NP1C、NPNC
+ * 参数：每个生产者的入队数量（默认1000000）
+ */
+public class QueueBenchmark {
+    private static final int CAPACITY = 1024;
+
+    public static void main(String[] args) throws InterruptedException {
+        int perProducer = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+        int n = Math.max(2, Runtime.getRuntime().availableProcessors() / 2);
+        int[][] modes = {{1, 1}, {n, 1}, {n, n}};
+        for (int round = 0; round < 2; round++) {
+            for (int[] mode : modes) {
+                MpmcArrayQueue<Integer> mpmc = new MpmcArrayQueue<>(CAPACITY);
+                run("MpmcArrayQueue", mode[0], mode[1], perProducer, mpmc::offer, mpmc::poll);
+                ArrayBlockingQueue<Integer> jdk = new ArrayBlockingQueue<>(CAPACITY);
+                run("ArrayBlockingQueue", mode[0], mode[1], perProducer, jdk::offer, jdk::poll);
+                Queue<Integer> queue = new Queue<>(CAPACITY);
+                run("synchronized Queue", mode[0], mode[1], perProducer, e -> {
+                    synchronized (queue) {
+                        return queue.offer(e);
+                    }
+                }, () -> {
+                    synchronized (queue) {
+                        return queue.poll();
+                    }
+                });
+            }
+        }
+    }
+
+    /**
+     * @param offer 非阻塞入队，队列满时返回false
+     * @param poll  非阻塞出队，队列空时返回null
+     */
+    private static void run(String name, int producers, int consumers, int perProducer,
+                            Predicate<Integer> offer, Supplier<Integer> poll) throws InterruptedException {
+        long total = (long) producers * perProducer;
+        AtomicLong consumed = new AtomicLong();
+        AtomicLong checksum = new AtomicLong();
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] threads = new Thread[producers + consumers];
+        for (int p = 0; p < producers; p++) {
+            threads[p] = new Thread(() -> {
+                await(start);
+                for (int i = 0; i < perProducer; i++) {
+                    Integer e = i;
+                    while (!offer.test(e)) {
+                        Thread.yield();
+                    }
+                }
+            });
+        }
+        for (int c = 0; c < consumers; c++) {
+            threads[producers + c] = new Thread(() -> {
+                await(start);
+                long sum = 0;
+                while (consumed.get() < total) {
+                    Integer e = poll.get();
+                    if (e == null) {
+                        Thread.yield();
+                        continue;
+                    }
+                    sum += e;
+                    consumed.incrementAndGet();
+                }
+                checksum.addAndGet(sum);
+            });
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        long cost = System.nanoTime() - begin;
+        if (checksum.get() != producers * ((long) perProducer * (perProducer - 1) / 2)) {
+            throw new IllegalStateException(name + " lost elements");
+        }
+        System.out.printf("%-20s %dP%dC %8.0f ops/ms%n", name, producers, consumers, total / (cost / 1e6));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
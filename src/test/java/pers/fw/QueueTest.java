@@ -0,0 +1,168 @@
+package pers.fw;
+
+import pers.fw.data_structure.CircularDeque;
+import pers.fw.data_structure.Queue;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+/**
+ * 循环数组实现的队列与ArrayDeque对照：随机操作（初始容量很小，频繁回绕、扩容、缩容），
+ * 以及几个定点场景：队头回绕到数组末尾、跨越回绕点扩容、队尾位于下标0时pollLast
+ */
+public class QueueTest {
+    public static void main(String[] args) {
+        for (int initialCapacity : new int[]{1, 2, 5}) {
+            circularDeque(new CircularDeque<>(initialCapacity), "capacity=" + initialCapacity);
+            circularDeque(new CircularDeque<>(initialCapacity, true), "shrinkable capacity=" + initialCapacity);
+        }
+        circularDequeWrap();
+        queue(new Queue<>(), "unbounded");
+        queue(new Queue<>(5), "bound=5");
+        queue(new Queue<>(64), "bound=64");
+        queueWrap();
+    }
+
+    private static void circularDeque(CircularDeque<Integer> deque, String name) {
+        Random random = new Random(42);
+        ArrayDeque<Integer> expected = new ArrayDeque<>();
+        for (int i = 0; i < 200000; i++) {
+            int op = random.nextInt(100);
+            if (op < 25) {
+                deque.offerFirst(i);
+                expected.offerFirst(i);
+            } else if (op < 50) {
+                deque.offerLast(i);
+                expected.offerLast(i);
+            } else if (op < 70) {
+                if (!Objects.equals(deque.pollFirst(), expected.pollFirst())) throw new IllegalStateException(name + ": pollFirst mismatch at " + i);
+            } else if (op < 90) {
+                if (!Objects.equals(deque.pollLast(), expected.pollLast())) throw new IllegalStateException(name + ": pollLast mismatch at " + i);
+            } else if (op < 99) {
+                if (!Objects.equals(deque.peekFirst(), expected.peekFirst()) || !Objects.equals(deque.peekLast(), expected.peekLast())) {
+                    throw new IllegalStateException(name + ": peek mismatch at " + i);
+                }
+            } else if (random.nextInt(20) == 0) {
+                deque.clear();
+                expected.clear();
+            }
+            if (deque.size() != expected.size()) throw new IllegalStateException(name + ": size mismatch at " + i);
+            if (i % 1000 == 0) same(deque, expected, name + " at " + i);
+        }
+        same(deque, expected, name);
+        System.out.println("CircularDeque " + name + " ok");
+    }
+
+    /**
+     * 容量为4的数组上的定点场景，每一步都与ArrayDeque对照
+     */
+    private static void circularDequeWrap() {
+        //队尾回绕到下标0、1后跨越回绕点扩容
+        CircularDeque<Integer> deque = new CircularDeque<>(4);
+        ArrayDeque<Integer> expected = new ArrayDeque<>();
+        for (int i = 0; i < 2; i++) {
+            deque.offerLast(i);
+            expected.offerLast(i);
+        }
+        deque.pollFirst();
+        deque.pollFirst();
+        expected.clear();
+        for (int i = 2; i < 7; i++) {
+            deque.offerLast(i);
+            expected.offerLast(i);
+            same(deque, expected, "offerLast across wrap " + i);
+        }
+        //队头从下标0回绕到数组末尾，队尾位于下标0时pollLast
+        deque = new CircularDeque<>(4);
+        expected.clear();
+        deque.offerFirst(1);
+        expected.offerFirst(1);
+        deque.offerLast(2);
+        expected.offerLast(2);
+        same(deque, expected, "offerFirst wrap");
+        if (deque.pollLast() != 2 || deque.pollLast() != 1 || deque.pollLast() != null) throw new IllegalStateException("pollLast at index 0");
+        //队头回绕后跨越回绕点扩容
+        expected.clear();
+        for (int i = 0; i < 9; i++) {
+            deque.offerFirst(i);
+            expected.offerFirst(i);
+            same(deque, expected, "offerFirst across wrap " + i);
+        }
+        System.out.println("CircularDeque wrap ok");
+    }
+
+    /**
+     * 有界队列满时offer返回false且不改变队列，与ArrayDeque对照时跳过该元素
+     */
+    private static void queue(Queue<Integer> queue, String name) {
+        Random random = new Random(42);
+        ArrayDeque<Integer> expected = new ArrayDeque<>();
+        int bound = queue.remainingCapacity();
+        for (int i = 0; i < 200000; i++) {
+            int op = random.nextInt(100);
+            if (op < 50) {
+                boolean full = expected.size() == bound;
+                if (queue.offer(i) == full) throw new IllegalStateException(name + ": offer result mismatch at " + i);
+                if (!full) expected.offer(i);
+            } else if (op < 90) {
+                if (!Objects.equals(queue.poll(), expected.poll())) throw new IllegalStateException(name + ": poll mismatch at " + i);
+            } else if (op < 99) {
+                if (!Objects.equals(queue.peek(), expected.peek())) throw new IllegalStateException(name + ": peek mismatch at " + i);
+            } else if (random.nextInt(20) == 0) {
+                queue.clear();
+                expected.clear();
+            }
+            if (queue.size() != expected.size() || queue.remainingCapacity() != bound - expected.size()) {
+                throw new IllegalStateException(name + ": size mismatch at " + i);
+            }
+            if (i % 1000 == 0) same(queue, expected, name + " at " + i);
+        }
+        same(queue, expected, name);
+        System.out.println("Queue " + name + " ok");
+    }
+
+    /**
+     * 默认容量16：队头移到数组中间后入队回绕，再跨越回绕点扩容
+     */
+    private static void queueWrap() {
+        Queue<Integer> queue = new Queue<>();
+        ArrayDeque<Integer> expected = new ArrayDeque<>();
+        for (int i = 0; i < 16; i++) {
+            queue.offer(i);
+            expected.offer(i);
+        }
+        for (int i = 0; i < 10; i++) {
+            queue.poll();
+            expected.poll();
+        }
+        for (int i = 16; i < 40; i++) {
+            queue.offer(i);
+            expected.offer(i);
+            same(queue, expected, "offer across wrap " + i);
+        }
+        System.out.println("Queue wrap ok");
+    }
+
+    private static void same(Queue<Integer> queue, ArrayDeque<Integer> expected, String name) {
+        same(queue, queue.parallelStream().collect(Collectors.toList()), expected, name);
+    }
+
+    private static void same(CircularDeque<Integer> deque, ArrayDeque<Integer> expected, String name) {
+        same(deque, deque.parallelStream().collect(Collectors.toList()), expected, name);
+    }
+
+    /**
+     * 迭代器和并行流（拆分后的spliterator）的结果都与expected一致
+     */
+    private static void same(Iterable<Integer> actual, List<Integer> streamed, ArrayDeque<Integer> expected, String name) {
+        List<Integer> list = new ArrayList<>(expected);
+        List<Integer> iterated = new ArrayList<>();
+        for (Integer e : actual) iterated.add(e);
+        if (!iterated.equals(list)) throw new IllegalStateException(name + ": iterator mismatch");
+        if (!streamed.equals(list)) throw new IllegalStateException(name + ": parallelStream mismatch");
+    }
+}
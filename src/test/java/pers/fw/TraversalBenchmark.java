@@ -0,0 +1,102 @@
+package pers.fw;
+
+import pers.fw.data_structure.interf.ThreadSafeVisitor;
+import pers.fw.data_structure.interf.Visitor;
+import pers.fw.data_structure.tree.BinaryTree.TraversalMode;
+import pers.fw.data_structure.tree.RedBlackTree;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 比较基于栈的遍历与Morris遍历的吞吐量及内存分配量，以及顺序聚合与并行聚合的耗时
+ */
+public class TraversalBenchmark {
+    private static final com.sun.management.ThreadMXBean THREAD_MX_BEAN =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private static long sum;
+
+    public static void main(String[] args) {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+        RedBlackTree<Integer> tree = new RedBlackTree<>();
+        Random random = new Random(42);
+        for (int i = 0; i < n; i++) {
+            tree.add(random.nextInt());
+        }
+        checkSameOrder(tree);
+
+        Visitor<Integer> visitor = e -> {
+            sum += e;
+            return false;
+        };
+        for (int round = 0; round < 3; round++) {
+            for (TraversalMode mode : TraversalMode.values()) {
+                run("preOrder", mode, () -> tree.preOrderTraversal(visitor, mode));
+                run("inOrder", mode, () -> tree.inOrderTraversal(visitor, mode));
+                run("postOrder", mode, () -> tree.postOrderTraversal(visitor, mode));
+            }
+        }
+        System.out.println(sum);
+
+        for (int round = 0; round < 3; round++) {
+            time("size", tree::size);
+            time("parallel count", () -> tree.parallel().count());
+            time("height", tree::height);
+            time("parallel height", () -> tree.parallel().height());
+            time("parallel sum", () -> tree.parallel().sum(Integer::longValue));
+            LongAdder adder = new LongAdder();
+            time("parallel forEach", () -> {
+                tree.parallel().forEach((ThreadSafeVisitor<Integer>) e -> {
+                    adder.add(e);
+                    return false;
+                });
+                return adder.sum();
+            });
+        }
+    }
+
+    private interface Aggregation {
+        Object run();
+    }
+
+    private static void time(String name, Aggregation aggregation) {
+        long start = System.nanoTime();
+        Object result = aggregation.run();
+        long cost = System.nanoTime() - start;
+        System.out.printf("%-16s = %-14s cost=%4dms%n", name, result, cost / 1000000);
+    }
+
+    private static void checkSameOrder(RedBlackTree<Integer> tree) {
+        List<Integer> stack = new ArrayList<>();
+        List<Integer> morris = new ArrayList<>();
+        Visitor<Integer> toStack = e -> {
+            stack.add(e);
+            return false;
+        };
+        Visitor<Integer> toMorris = e -> {
+            morris.add(e);
+            return false;
+        };
+        tree.preOrderTraversal(toStack, TraversalMode.STACK);
+        tree.preOrderTraversal(toMorris, TraversalMode.MORRIS);
+        tree.inOrderTraversal(toStack, TraversalMode.STACK);
+        tree.inOrderTraversal(toMorris, TraversalMode.MORRIS);
+        tree.postOrderTraversal(toStack, TraversalMode.STACK);
+        tree.postOrderTraversal(toMorris, TraversalMode.MORRIS);
+        if (!stack.equals(morris)) throw new IllegalStateException("traversal order mismatch");
+    }
+
+    private static void run(String name, TraversalMode mode, Runnable traversal) {
+        long threadId = Thread.currentThread().getId();
+        long allocated = THREAD_MX_BEAN.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        traversal.run();
+        long cost = System.nanoTime() - start;
+        allocated = THREAD_MX_BEAN.getThreadAllocatedBytes(threadId) - allocated;
+        System.out.printf("%-10s %-6s cost=%4dms allocated=%dKB%n", name, mode, cost / 1000000, allocated / 1024);
+    }
+}
@@ -0,0 +1,332 @@
+package pers.fw;
+
+import pers.fw.data_structure.interf.KeyCodec;
+import pers.fw.data_structure.interf.Visitor;
+import pers.fw.data_structure.tree.AVLTree;
+import pers.fw.data_structure.tree.BPlusTree;
+import pers.fw.data_structure.tree.BinarySearchTree;
+import pers.fw.data_structure.tree.BinaryTree;
+import pers.fw.data_structure.tree.PersistentTree;
+import pers.fw.data_structure.tree.RedBlackTree;
+import pers.fw.data_structure.tree.TreeSnapshot;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+public class TreeTest {
+    public static void main(String[] args) throws IOException {
+        check(new AVLTree<>(), false);
+        check(new RedBlackTree<>(), false);
+        check(new AVLTree<>(true), true);
+        check(new RedBlackTree<>(true), true);
+        persistent();
+        morrisException();
+        bPlusTree(4);
+        bPlusTree(5);
+        bPlusTree(6);
+
+        //顺序插入：BST退化为链表，平衡树保持O(logn)
+        int n = 20000;
+        sequentialInsert("BST", new BinarySearchTree<>(), n);
+        sequentialInsert("AVL", new AVLTree<>(), n);
+        sequentialInsert("RB", new RedBlackTree<>(), n);
+        sequentialInsert("AVL", new AVLTree<>(), n * 100);
+        sequentialInsert("RB", new RedBlackTree<>(), n * 100);
+
+        //批量构建：有序输入直接构建完全平衡的树
+        bulkLoad(n * 100);
+        bulkLoad(n * 1000);
+
+        snapshot(n * 100);
+    }
+
+    /**
+     * Morris遍历中访问器在任意位置抛出异常后，线索和反转的右链都已还原：三种遍历的结果与抛出异常前一致
+     */
+    private static void morrisException() {
+        Random random = new Random(42);
+        AVLTree<Integer> tree = new AVLTree<>();
+        for (int i = 0; i < 300; i++) {
+            tree.add(random.nextInt(1000));
+        }
+        int size = tree.size();
+        List<List<Integer>> expected = traversals(tree);
+        for (int order = 0; order < 3; order++) {
+            for (int k = 0; k < size; k++) {
+                int[] visited = {0};
+                int stopAt = k;
+                Visitor<Integer> visitor = e -> {
+                    if (visited[0]++ == stopAt) throw new IllegalArgumentException("visitor failed");
+                    return false;
+                };
+                try {
+                    if (order == 0) tree.preOrderTraversal(visitor, BinaryTree.TraversalMode.MORRIS);
+                    else if (order == 1) tree.inOrderTraversal(visitor, BinaryTree.TraversalMode.MORRIS);
+                    else tree.postOrderTraversal(visitor, BinaryTree.TraversalMode.MORRIS);
+                    throw new IllegalStateException("visitor exception swallowed");
+                } catch (IllegalArgumentException e) {
+                    //预期的异常
+                }
+                if (tree.size() != size || !traversals(tree).equals(expected)) {
+                    throw new IllegalStateException("tree modified after visitor exception, order " + order + " at " + k);
+                }
+            }
+        }
+        System.out.println("morris exception ok");
+    }
+
+    /**
+     * 小扇出的B+树与TreeSet对照：随机增删（元素范围小，删除频繁触发借元素与合并），升序、降序删除（分别主要向右、向左兄弟借/合并），
+     * 删空后根节点逐层收缩；以及[from, to)范围遍历和迭代器的快速失败
+     */
+    private static void bPlusTree(int fanout) {
+        Random random = new Random(fanout);
+        TreeSet<Integer> expected = new TreeSet<>();
+        BPlusTree<Integer> tree = new BPlusTree<>(fanout);
+        for (int i = 0; i < 200000; i++) {
+            int e = random.nextInt(2000);
+            if (random.nextBoolean()) {
+                tree.remove(e);
+                expected.remove(e);
+            } else {
+                tree.add(e);
+                expected.add(e);
+            }
+            if (i % 1000 == 0) checkBPlusTree(tree, expected, "random " + i);
+        }
+        checkBPlusTree(tree, expected, "random");
+        for (int from = -5; from <= 2005; from += 13) {
+            int to = from + random.nextInt(3 * fanout);
+            List<Integer> range = new ArrayList<>();
+            tree.rangeTraversal(from, to, e -> !range.add(e));
+            if (!range.equals(new ArrayList<>(expected.subSet(from, to)))) throw new IllegalStateException("range mismatch [" + from + ", " + to + ")");
+        }
+        List<Integer> empty = new ArrayList<>();
+        tree.rangeTraversal(expected.first(), expected.first(), e -> !empty.add(e));
+        if (!empty.isEmpty()) throw new IllegalStateException("empty range not empty");
+
+        Iterator<Integer> iterator = tree.iterator();
+        iterator.next();
+        tree.remove(-1);
+        iterator.next();
+        tree.add(-1);
+        try {
+            iterator.next();
+            throw new IllegalStateException("iterator not fail-fast");
+        } catch (ConcurrentModificationException e) {
+            //预期的异常
+        }
+        tree.remove(-1);
+
+        //升序删除一半，降序删除另一半
+        List<Integer> elements = new ArrayList<>(expected);
+        int half = elements.size() / 2;
+        for (int i = 0; i < elements.size(); i++) {
+            Integer e = i < half ? elements.get(i) : elements.get(elements.size() - 1 - (i - half));
+            tree.remove(e);
+            expected.remove(e);
+            if (i % 50 == 0) checkBPlusTree(tree, expected, "drain " + i);
+        }
+        if (!tree.isEmpty() || tree.height() != 0 || tree.iterator().hasNext()) throw new IllegalStateException("drained tree not empty");
+        //删空后可以继续使用
+        for (int i = 0; i < 100; i++) {
+            tree.add(i);
+            expected.add(i);
+        }
+        checkBPlusTree(tree, expected, "refill");
+        System.out.println("BPlusTree ok, fanout=" + fanout);
+    }
+
+    private static void checkBPlusTree(BPlusTree<Integer> tree, TreeSet<Integer> expected, String stage) {
+        List<Integer> iterated = new ArrayList<>();
+        for (Integer e : tree) iterated.add(e);
+        List<Integer> traversed = new ArrayList<>();
+        tree.inOrderTraversal(e -> !traversed.add(e));
+        List<Integer> list = new ArrayList<>(expected);
+        if (!iterated.equals(list) || !traversed.equals(list)) throw new IllegalStateException("BPlusTree mismatch at " + stage);
+        if (tree.size() != expected.size()) throw new IllegalStateException("BPlusTree size mismatch at " + stage);
+        for (int e = -1; e <= 2001; e += 97) {
+            if (tree.contains(e) != expected.contains(e)) throw new IllegalStateException("BPlusTree contains mismatch at " + stage);
+        }
+        //每个非根节点至少有fanout/2个元素或子节点，树高不超过O(log n)
+        int maxHeight = expected.isEmpty() ? 0 : 2 + (int) (Math.log(expected.size()) / Math.log(tree.fanout() / 2));
+        if (tree.height() > maxHeight) throw new IllegalStateException("BPlusTree height " + tree.height() + " at " + stage);
+    }
+
+    /**
+     * 基于栈的前/中/后序遍历，以及Morris中序遍历的结果
+     */
+    private static List<List<Integer>> traversals(BinaryTree<Integer> tree) {
+        List<List<Integer>> result = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            result.add(new ArrayList<>());
+        }
+        tree.preOrderTraversal(e -> !result.get(0).add(e));
+        tree.inOrderTraversal(e -> !result.get(1).add(e));
+        tree.postOrderTraversal(e -> !result.get(2).add(e));
+        tree.inOrderTraversal(e -> !result.get(3).add(e), BinaryTree.TraversalMode.MORRIS);
+        return result;
+    }
+
+    /**
+     * 持久化树：随机修改的同时保留若干旧版本，最后检查每个旧版本都没有被后续修改影响
+     */
+    private static void persistent() {
+        Random random = new Random(42);
+        TreeSet<Integer> expected = new TreeSet<>();
+        PersistentTree<Integer> tree = new PersistentTree<>();
+        List<PersistentTree<Integer>> versions = new ArrayList<>();
+        List<List<Integer>> snapshots = new ArrayList<>();
+        for (int i = 0; i < 100000; i++) {
+            int e = random.nextInt(5000);
+            if (random.nextInt(3) == 0) {
+                tree = tree.remove(e);
+                expected.remove(e);
+            } else {
+                tree = tree.add(e);
+                expected.add(e);
+            }
+            if (i % 10000 == 0) {
+                versions.add(tree);
+                snapshots.add(new ArrayList<>(expected));
+            }
+        }
+        for (int i = 0; i < versions.size(); i++) {
+            PersistentTree<Integer> version = versions.get(i);
+            List<Integer> iterated = new ArrayList<>();
+            for (Integer e : version) iterated.add(e);
+            List<Integer> traversed = new ArrayList<>();
+            version.inOrderTraversal(e -> {
+                traversed.add(e);
+                return false;
+            }, BinaryTree.TraversalMode.MORRIS);
+            if (!iterated.equals(snapshots.get(i)) || !traversed.equals(iterated) || version.size() != iterated.size()
+                    || !version.parallelStream().collect(Collectors.toList()).equals(iterated)) {
+                throw new IllegalStateException("persistent version " + i + " changed");
+            }
+        }
+        if (tree.size() != expected.size() || !Objects.equals(tree.first(), expected.first()) || !Objects.equals(tree.last(), expected.last())) {
+            throw new IllegalStateException("persistent mismatch");
+        }
+        int maxHeight = (int) (1.45 * Math.log(expected.size() + 2) / Math.log(2));
+        if (tree.height() > maxHeight) throw new IllegalStateException("unbalanced height " + tree.height());
+        System.out.println("PersistentTree ok, size=" + tree.size() + " height=" + tree.height() + " versions=" + versions.size());
+    }
+
+    /**
+     * 快照恢复与逐个add重建的耗时对比
+     */
+    private static void snapshot(int n) throws IOException {
+        Random random = new Random(42);
+        RedBlackTree<Integer> tree = new RedBlackTree<>();
+        for (int i = 0; i < n; i++) {
+            tree.add(random.nextInt());
+        }
+        Path path = Files.createTempFile("tree", ".snapshot");
+        try {
+            long start = System.nanoTime();
+            TreeSnapshot.write(tree, KeyCodec.INT, path);
+            long write = System.nanoTime() - start;
+            start = System.nanoTime();
+            RedBlackTree<Integer> restored = TreeSnapshot.read(path, KeyCodec.INT, new RedBlackTree<>());
+            long read = System.nanoTime() - start;
+            start = System.nanoTime();
+            //按原来的顺序逐个add
+            random = new Random(42);
+            RedBlackTree<Integer> rebuilt = new RedBlackTree<>();
+            for (int i = 0; i < n; i++) {
+                rebuilt.add(random.nextInt());
+            }
+            long rebuild = System.nanoTime() - start;
+            Iterator<Integer> expected = tree.iterator();
+            for (Integer e : restored) {
+                if (!e.equals(expected.next())) throw new IllegalStateException("snapshot mismatch");
+            }
+            System.out.printf("RB snapshot n=%d bytes=%d write=%dms restore=%dms rebuild by add=%dms%n",
+                    restored.size(), Files.size(path), write / 1000000, read / 1000000, rebuild / 1000000);
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    private static void bulkLoad(int n) {
+        List<Integer> sorted = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            sorted.add(i);
+        }
+        long start = System.nanoTime();
+        RedBlackTree<Integer> tree = new RedBlackTree<>(sorted);
+        long cost = System.nanoTime() - start;
+        for (int i = 0; i < n; i += 997) {
+            if (!tree.contains(i)) throw new IllegalStateException("bulk missing " + i);
+        }
+        System.out.printf("RB bulk load n=%d height=%d cost=%dms (%.1fns/op)%n",
+                n, tree.height(), cost / 1000000, (double) cost / n);
+    }
+
+    private static void sequentialInsert(String name, BinarySearchTree<Integer> tree, int n) {
+        long start = System.nanoTime();
+        for (int i = 0; i < n; i++) {
+            tree.add(i);
+        }
+        for (int i = 0; i < n; i++) {
+            if (!tree.contains(i)) throw new IllegalStateException(name + " missing " + i);
+        }
+        long cost = System.nanoTime() - start;
+        System.out.printf("%s sequential n=%d height=%d cost=%dms (%.1fns/op)%n",
+                name, n, tree.height(), cost / 1000000, (double) cost / (2 * n));
+    }
+
+    private static void check(BinarySearchTree<Integer> tree, boolean orderStatistic) {
+        Random random = new Random(42);
+        TreeSet<Integer> expected = new TreeSet<>();
+        for (int i = 0; i < 100000; i++) {
+            int e = random.nextInt(5000);
+            if (random.nextInt(3) == 0) {
+                tree.remove(e);
+                expected.remove(e);
+            } else {
+                tree.add(e);
+                expected.add(e);
+            }
+        }
+        List<Integer> actual = new ArrayList<>();
+        tree.inOrderTraversal(e -> {
+            actual.add(e);
+            return false;
+        });
+        if (!actual.equals(new ArrayList<>(expected))) throw new IllegalStateException("inOrder mismatch");
+        List<Integer> iterated = new ArrayList<>();
+        for (Integer e : tree) iterated.add(e);
+        if (!iterated.equals(actual)) throw new IllegalStateException("iterator mismatch");
+        if (!tree.parallelStream().collect(Collectors.toList()).equals(actual)) throw new IllegalStateException("parallelStream mismatch");
+        if (tree.size() != expected.size()) throw new IllegalStateException("size mismatch");
+        for (int e = -1; e <= 5000; e += 7) {
+            if (!Objects.equals(tree.floor(e), expected.floor(e)) || !Objects.equals(tree.higher(e), expected.higher(e))) {
+                throw new IllegalStateException("floor/higher mismatch at " + e);
+            }
+            List<Integer> range = new ArrayList<>();
+            for (Integer x : tree.subSet(e, e + 100)) range.add(x);
+            if (!range.equals(new ArrayList<>(expected.subSet(e, e + 100)))) throw new IllegalStateException("subSet mismatch at " + e);
+        }
+        if (orderStatistic) {
+            for (int k = 0; k < actual.size(); k++) {
+                if (!tree.select(k).equals(actual.get(k)) || tree.rank(actual.get(k)) != k) {
+                    throw new IllegalStateException("select/rank mismatch at " + k);
+                }
+            }
+        }
+        int maxHeight = (int) (2 * Math.ceil(Math.log(expected.size() + 1) / Math.log(2)));
+        if (tree.height() > maxHeight) throw new IllegalStateException("unbalanced height " + tree.height());
+        System.out.println(tree.getClass().getSimpleName() + " ok, size=" + tree.size() + " height=" + tree.height());
+    }
+}
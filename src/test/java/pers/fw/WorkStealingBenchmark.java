@@ -0,0 +1,135 @@
+package pers.fw;
+
+import pers.fw.data_structure.WorkStealingDeque;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 递归任务吞吐量：用WorkStealingDeque实现一个简单的工作窃取调度器，与ForkJoinPool比较
+ * 任务为递归计算斐波那契数：fib(n)拆分为fib(n-1)和fib(n-2)两个子任务，n小于阈值时直接计算
+ * 参数：n（默认32）
+ */
+public class WorkStealingBenchmark {
+    private static final int THRESHOLD = 10;
+
+    public static void main(String[] args) {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 32;
+        int workers = Math.max(2, Runtime.getRuntime().availableProcessors());
+        long expected = fib(n);
+        for (int round = 0; round < 3; round++) {
+            long start = System.nanoTime();
+            Scheduler scheduler = new Scheduler(workers);
+            long result = scheduler.run(n);
+            long cost = System.nanoTime() - start;
+            if (result != expected) throw new IllegalStateException("scheduler result " + result + " != " + expected);
+            System.out.printf("WorkStealingDeque workers=%d tasks=%d %8.0f tasks/ms%n",
+                    workers, scheduler.tasks.sum(), scheduler.tasks.sum() / (cost / 1e6));
+
+            ForkJoinPool pool = new ForkJoinPool(workers);
+            LongAdder sum = new LongAdder();
+            LongAdder tasks = new LongAdder();
+            start = System.nanoTime();
+            pool.invoke(new FibAction(n, sum, tasks));
+            cost = System.nanoTime() - start;
+            pool.shutdown();
+            if (sum.sum() != expected) throw new IllegalStateException("fork/join result " + sum.sum());
+            System.out.printf("ForkJoinPool      workers=%d tasks=%d %8.0f tasks/ms%n",
+                    workers, tasks.sum(), tasks.sum() / (cost / 1e6));
+        }
+    }
+
+    private static long fib(int n) {
+        return n < 2 ? n : fib(n - 1) + fib(n - 2);
+    }
+
+    /**
+     * 每个工作线程优先从自己队列的尾部取任务（后进先出，局部性好），为空时随机选择其他线程窃取
+     * 通过未完成任务计数判断结束
+     */
+    private static class Scheduler {
+        private final WorkStealingDeque<Integer>[] deques;
+        private final AtomicLong pending = new AtomicLong();
+        private final LongAdder sum = new LongAdder();
+        private final LongAdder tasks = new LongAdder();
+
+        Scheduler(int workers) {
+            deques = new WorkStealingDeque[workers];
+            for (int i = 0; i < workers; i++) {
+                deques[i] = new WorkStealingDeque<>();
+            }
+        }
+
+        long run(int n) {
+            pending.set(1);
+            deques[0].offerLast(n);
+            Thread[] threads = new Thread[deques.length];
+            for (int i = 0; i < threads.length; i++) {
+                int id = i;
+                threads[i] = new Thread(() -> work(id));
+                threads[i].start();
+            }
+            for (Thread thread : threads) {
+                try {
+                    thread.join();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return sum.sum();
+        }
+
+        private void work(int id) {
+            WorkStealingDeque<Integer> own = deques[id];
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            while (pending.get() > 0) {
+                Integer task = own.pollLast();
+                if (task == null) {
+                    task = deques[random.nextInt(deques.length)].steal();
+                    if (task == null) {
+                        Thread.yield();
+                        continue;
+                    }
+                }
+                execute(own, task);
+            }
+        }
+
+        private void execute(WorkStealingDeque<Integer> own, int n) {
+            tasks.increment();
+            if (n < THRESHOLD) {
+                sum.add(fib(n));
+            } else {
+                pending.addAndGet(2);
+                own.offerLast(n - 2);
+                own.offerLast(n - 1);
+            }
+            pending.decrementAndGet();
+        }
+    }
+
+    private static class FibAction extends RecursiveAction {
+        private final int n;
+        private final LongAdder sum;
+        private final LongAdder tasks;
+
+        FibAction(int n, LongAdder sum, LongAdder tasks) {
+            this.n = n;
+            this.sum = sum;
+            this.tasks = tasks;
+        }
+
+        @Override
+        protected void compute() {
+            tasks.increment();
+            if (n < THRESHOLD) {
+                sum.add(fib(n));
+            } else {
+                invokeAll(new FibAction(n - 1, sum, tasks), new FibAction(n - 2, sum, tasks));
+            }
+        }
+    }
+}